@@ -7,6 +7,12 @@ package sejong;
 public class Constants {
     /** Default file path for task storage. */
     public static final String DEFAULT_FILE_PATH = "./data/sejong.txt";
+
+    /** Command-line flag running the commands on standard input as one batch. */
+    public static final String BATCH_FLAG = "--batch";
+
+    /** Default local port of server mode. */
+    public static final int DEFAULT_SERVER_PORT = 4500;
     
     /** Command strings used in the application. */
     public static final String CMD_BYE = "bye";
@@ -18,12 +24,19 @@ public class Constants {
     public static final String CMD_DEADLINE = "deadline";
     public static final String CMD_EVENT = "event";
     public static final String CMD_FIND = "find";
+    public static final String CMD_EXPLAIN = "explain";
+    public static final String CMD_BEGIN = "begin";
+    public static final String CMD_COMMIT = "commit";
+    public static final String CMD_ROLLBACK = "rollback";
     
     /** Find command filter prefixes. */
     public static final String FILTER_DATE = "/date";
     public static final String FILTER_TYPE = "/type";
     public static final String FILTER_STATUS = "/status";
 
+    /** Prefix marking a task argument as a stable task id rather than a list position. */
+    public static final String TASK_ID_PREFIX = "#";
+
     /**
      * Private constructor to prevent instantiation of utility class.
      */
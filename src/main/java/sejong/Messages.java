@@ -53,11 +53,21 @@ public class Messages {
             ERROR_PREFIX + "Please specify a type after /type.";
     public static final String ERROR_EMPTY_STATUS_FILTER = 
             ERROR_PREFIX + "Please specify a status after /status.";
+    public static final String ERROR_INVALID_EXPLAIN_SYNTAX = 
+            ERROR_PREFIX + "Invalid explain command syntax. Use: explain find <keywords> [filters]";
 
     // Duplicate task
     public static final String ERROR_DUPLICATE_TASK = 
             ERROR_PREFIX + "This task already exists in the list.";
 
+    // Transaction errors
+    public static final String ERROR_TRANSACTION_ALREADY_OPEN =
+            ERROR_PREFIX + "A transaction is already open. Use commit or rollback first.";
+    public static final String ERROR_NO_TRANSACTION =
+            ERROR_PREFIX + "No transaction is open. Use begin to start one.";
+    public static final String ERROR_TRANSACTION_CONFLICT =
+            ERROR_PREFIX + "A task changed in the transaction was deleted elsewhere, so it was rolled back.";
+
     /**
      * Private constructor to prevent instantiation of utility class.
      */
@@ -1,13 +1,17 @@
 package sejong;
 
+import sejong.command.BeginCommand;
 import sejong.command.ByeCommand;
 import sejong.command.Command;
+import sejong.command.CommitCommand;
 import sejong.command.DeadlineCommand;
 import sejong.command.DeleteCommand;
 import sejong.command.EventCommand;
+import sejong.command.ExplainCommand;
 import sejong.command.FindCommand;
 import sejong.command.ListCommand;
 import sejong.command.MarkCommand;
+import sejong.command.RollbackCommand;
 import sejong.command.TodoCommand;
 import sejong.command.UnmarkCommand;
 import sejong.util.DateUtil;
@@ -28,6 +32,7 @@ public class Parser {
     private static final int CMD_DEADLINE_LENGTH = CMD_DEADLINE.length();
     private static final int CMD_EVENT_LENGTH = CMD_EVENT.length();
     private static final int CMD_FIND_LENGTH = CMD_FIND.length();
+    private static final int CMD_EXPLAIN_LENGTH = CMD_EXPLAIN.length();
 
     /**
      * Parses user input into a Command object.
@@ -46,19 +51,28 @@ public class Parser {
             return new ListCommand();
         }
 
+        if (CMD_BEGIN.equals(fullCommand)) {
+            return new BeginCommand();
+        }
+
+        if (CMD_COMMIT.equals(fullCommand)) {
+            return new CommitCommand();
+        }
+
+        if (CMD_ROLLBACK.equals(fullCommand)) {
+            return new RollbackCommand();
+        }
+
         if (fullCommand.startsWith(CMD_MARK + " ")) {
-            int index = parseTaskIndex(fullCommand);
-            return new MarkCommand(index);
+            return new MarkCommand(parseTaskSelector(fullCommand));
         }
 
         if (fullCommand.startsWith(CMD_UNMARK + " ")) {
-            int index = parseTaskIndex(fullCommand);
-            return new UnmarkCommand(index);
+            return new UnmarkCommand(parseTaskSelector(fullCommand));
         }
 
         if (fullCommand.startsWith(CMD_DELETE + " ")) {
-            int index = parseTaskIndex(fullCommand);
-            return new DeleteCommand(index);
+            return new DeleteCommand(parseTaskSelector(fullCommand));
         }
 
         if (fullCommand.equals(CMD_TODO) || fullCommand.startsWith(CMD_TODO + " ")) {
@@ -81,9 +95,58 @@ public class Parser {
             return new FindCommand(criteria);
         }
 
+        if (fullCommand.equals(CMD_EXPLAIN) || fullCommand.startsWith(CMD_EXPLAIN + " ")) {
+            SearchCriteria criteria = parseExplainCommand(fullCommand);
+            return new ExplainCommand(criteria);
+        }
+
         throw new SejongException(ERROR_UNKNOWN_COMMAND);
     }
 
+    /**
+     * Parses an explain command, which wraps a find command: "explain find book /status done".
+     *
+     * @param input User input.
+     * @return Search criteria of the wrapped find command.
+     * @throws SejongException If no find command follows, or it is invalid.
+     */
+    public static SearchCriteria parseExplainCommand(String input) throws SejongException {
+        assert input != null : "Input should not be null";
+        String findCommand = input.trim().substring(CMD_EXPLAIN_LENGTH).trim();
+        if (!findCommand.equals(CMD_FIND) && !findCommand.startsWith(CMD_FIND + " ")) {
+            throw new SejongException(ERROR_INVALID_EXPLAIN_SYNTAX);
+        }
+        return parseFindCommand(findCommand);
+    }
+
+    /**
+     * Parses the task a command like "mark 2" or "delete #17" refers to: a number is a position
+     * in the list, and a number prefixed with '#' is a stable task id.
+     *
+     * @param input User input line.
+     * @return Selector for the task.
+     * @throws SejongException If the position or id cannot be parsed.
+     */
+    public static TaskSelector parseTaskSelector(String input) throws SejongException {
+        assert input != null : "Input should not be null";
+        String[] parts = input.trim().split("\\s+");
+        if (parts.length != 2) {
+            throw new SejongException(ERROR_INVALID_TASK_NUMBER);
+        }
+        if (!parts[1].startsWith(TASK_ID_PREFIX)) {
+            return TaskSelector.byIndex(parseTaskIndex(input));
+        }
+        try {
+            int id = Integer.parseInt(parts[1].substring(TASK_ID_PREFIX.length()));
+            if (id <= 0) {
+                throw new SejongException(ERROR_INVALID_TASK_NUMBER);
+            }
+            return TaskSelector.byId(id);
+        } catch (NumberFormatException e) {
+            throw new SejongException(ERROR_INVALID_TASK_NUMBER);
+        }
+    }
+
     /**
      * Parses a task index from a command like "mark 2" or "delete 3".
      *
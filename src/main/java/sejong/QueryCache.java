@@ -0,0 +1,100 @@
+package sejong;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import sejong.task.Task;
+
+/**
+ * Least-recently-used cache of find results, keyed on normalized {@link SearchCriteria}.
+ * Every entry belongs to one version of the task list; when the list's modification count moves on,
+ * the whole cache is dropped on the next lookup, so a stale result is never returned.
+ * Lookups reorder the entries, so every method synchronizes on the cache.
+ */
+public class QueryCache {
+    /** Number of distinct searches kept by default. */
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private final Map<SearchCriteria, List<Task>> results;
+    private long version;
+    private long hits;
+    private long misses;
+
+    /**
+     * Creates an empty cache holding up to the given number of searches.
+     *
+     * @param capacity Maximum number of cached searches.
+     */
+    public QueryCache(int capacity) {
+        assert capacity > 0 : "Cache capacity should be positive";
+        this.results = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<SearchCriteria, List<Task>> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached results of a search, counting a hit or a miss.
+     *
+     * @param criteria Normalized search criteria.
+     * @param version  Current modification count of the task list.
+     * @return Copy of the cached results, or null if the search is not cached for this version.
+     */
+    synchronized List<Task> get(SearchCriteria criteria, long version) {
+        if (version != this.version) {
+            results.clear();
+            this.version = version;
+        }
+        List<Task> cached = results.get(criteria);
+        if (cached == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return new ArrayList<>(cached);
+    }
+
+    /**
+     * Caches the results of a search, unless the cache has since moved on to another version.
+     *
+     * @param criteria Normalized search criteria.
+     * @param tasks    Results of the search; a copy is kept.
+     * @param version  Modification count of the task list the search was run against.
+     */
+    synchronized void put(SearchCriteria criteria, List<Task> tasks, long version) {
+        if (version == this.version) {
+            results.put(criteria, new ArrayList<>(tasks));
+        }
+    }
+
+    /**
+     * Returns the number of searches answered from the cache.
+     *
+     * @return Hit count.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of searches that had to be run.
+     *
+     * @return Miss count.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of searches currently cached.
+     *
+     * @return Cached search count.
+     */
+    public synchronized int size() {
+        return results.size();
+    }
+}
@@ -0,0 +1,153 @@
+package sejong;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Plan chosen by {@link TaskList#planQuery} for a search: one access path that produces the candidate
+ * tasks, and the remaining predicates to check on each candidate, most selective first.
+ * Row counts are estimates taken from the indexes when the plan is made.
+ */
+public class QueryPlan {
+    /**
+     * Ways of producing the candidate tasks.
+     */
+    public enum Access {
+        /** Every task in the list. */
+        FULL_SCAN,
+        /** Deadlines and events on the date, from the date indexes. */
+        DATE_INDEX,
+        /** Tasks that may contain the most selective keyword, from its description index. */
+        KEYWORD_INDEX,
+        /** Tasks of the type and status, from the bitsets. */
+        TYPE_STATUS_BITMAP
+    }
+
+    /**
+     * A predicate checked on each candidate.
+     */
+    public static class Check {
+        private final String description;
+        private final int estimatedRows;
+        /** Test on the slot of a task in the list's columns. */
+        private final IntPredicate predicate;
+
+        Check(String description, int estimatedRows, IntPredicate predicate) {
+            this.description = description;
+            this.estimatedRows = estimatedRows;
+            this.predicate = predicate;
+        }
+
+        /**
+         * Returns a readable description of the predicate.
+         *
+         * @return Description such as {@code status is done}.
+         */
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * Returns the estimated number of tasks in the whole list that pass the predicate.
+         *
+         * @return Estimated row count.
+         */
+        public int getEstimatedRows() {
+            return estimatedRows;
+        }
+
+        boolean test(int slot) {
+            return predicate.test(slot);
+        }
+    }
+
+    private final Access access;
+    /** Lowercased keyword looked up by the keyword index access, or null for other access paths. */
+    private final String accessKeyword;
+    private final String accessDescription;
+    private final int estimatedCandidates;
+    private final int totalTasks;
+    private final List<Check> checks;
+
+    QueryPlan(Access access, String accessKeyword, String accessDescription, int estimatedCandidates,
+              int totalTasks, List<Check> checks) {
+        assert (access == Access.KEYWORD_INDEX) == (accessKeyword != null)
+                : "Only the keyword index access should have a keyword";
+        this.access = access;
+        this.accessKeyword = accessKeyword;
+        this.accessDescription = accessDescription;
+        this.estimatedCandidates = estimatedCandidates;
+        this.totalTasks = totalTasks;
+        this.checks = new ArrayList<>(checks);
+    }
+
+    /**
+     * Returns the access path that produces the candidates.
+     *
+     * @return Access path.
+     */
+    public Access getAccess() {
+        return access;
+    }
+
+    /**
+     * Returns the keyword the keyword index access looks up.
+     *
+     * @return Lowercased keyword, or null if the access path is not the keyword index.
+     */
+    String getAccessKeyword() {
+        return accessKeyword;
+    }
+
+    /**
+     * Returns the estimated number of candidates the access path produces.
+     *
+     * @return Estimated candidate count.
+     */
+    public int getEstimatedCandidates() {
+        return estimatedCandidates;
+    }
+
+    /**
+     * Returns the checks applied to each candidate, in the order they run.
+     *
+     * @return Unmodifiable list of checks.
+     */
+    public List<Check> getChecks() {
+        return Collections.unmodifiableList(checks);
+    }
+
+    /**
+     * Checks whether a candidate passes every residual check, stopping at the first that fails.
+     *
+     * @param slot Slot of the candidate task in the list's columns.
+     */
+    boolean matches(int slot) {
+        for (Check check : checks) {
+            if (!check.test(slot)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Describes the plan as numbered steps, one per line.
+     *
+     * @return Readable plan.
+     */
+    public String explain() {
+        StringBuilder text = new StringBuilder();
+        text.append("1. ").append(accessDescription).append(" (~").append(estimatedCandidates)
+                .append(" of ").append(totalTasks).append(" tasks)");
+        int step = 2;
+        for (Check check : checks) {
+            text.append('\n').append(step++).append(". Check ").append(check.getDescription())
+                    .append(" (~").append(check.getEstimatedRows()).append(" of ").append(totalTasks)
+                    .append(" tasks pass)");
+        }
+        return text.toString();
+    }
+}
@@ -3,6 +3,8 @@ package sejong;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
 
 /**
  * Encapsulates search criteria for finding tasks.
@@ -130,4 +132,37 @@ public class SearchCriteria {
     public boolean hasStatusFilter() {
         return status != CompletionStatus.ALL;
     }
+
+    /**
+     * Returns equivalent criteria in a canonical form, so that searches that always give the same
+     * results compare equal: keywords are lowercased (matching ignores case), deduplicated and sorted
+     * (all of them must match, in any order).
+     *
+     * @return Normalized criteria.
+     */
+    public SearchCriteria normalized() {
+        TreeSet<String> normalizedKeywords = new TreeSet<>();
+        for (String keyword : keywords) {
+            normalizedKeywords.add(keyword.toLowerCase());
+        }
+        return new SearchCriteria(new ArrayList<>(normalizedKeywords), date, taskType, status);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof SearchCriteria)) {
+            return false;
+        }
+        SearchCriteria criteria = (SearchCriteria) other;
+        return keywords.equals(criteria.keywords) && Objects.equals(date, criteria.date)
+                && taskType == criteria.taskType && status == criteria.status;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(keywords, date, taskType, status);
+    }
 }
@@ -1,17 +1,54 @@
 package sejong;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import sejong.command.Command;
+import sejong.storage.LoadReport;
+import sejong.storage.StorageConfig;
+import sejong.task.Task;
 
+import static sejong.Constants.BATCH_FLAG;
 import static sejong.Constants.DEFAULT_FILE_PATH;
+import static sejong.Messages.ERROR_UNKNOWN_COMMAND;
 
 /**
  * Entry point for the Sejong chatbot.
  * Supports both CLI (run) and GUI (getResponse) usage.
  */
 public class Sejong {
+    /** Lines read and parsed together in batch mode. */
+    private static final int BATCH_CHUNK_LINES = 4096;
+
+    /**
+     * Result of parsing one line of a batch: a command, or the error the line would show.
+     */
+    private static final class ParsedLine {
+        private final Command command;
+        private final SejongException error;
+
+        private ParsedLine(Command command, SejongException error) {
+            this.command = command;
+            this.error = error;
+        }
+    }
+
     private final Storage storage;
     private final TaskList tasks;
     private final Ui ui;
+    /** Session of the console, the GUI and batch runs. */
+    private final Session session;
 
     /**
      * Creates a new Sejong chatbot instance for CLI (console I/O).
@@ -43,8 +80,9 @@ public class Sejong {
         assert ui != null : "UI should not be null";
         
         this.ui = ui;
-        this.storage = new Storage(filePath);
+        this.storage = new Storage(filePath, StorageConfig.fromSystemProperties());
         this.tasks = loadTasksOrDefault();
+        this.session = new Session(tasks, storage);
         
         assert this.storage != null : "Storage should be initialized";
         assert this.tasks != null : "TaskList should be initialized";
@@ -52,18 +90,47 @@ public class Sejong {
 
     /**
      * Loads tasks from storage, or returns an empty task list if loading fails.
+     * If any saved records had to be skipped, tells the user which ones and why.
      *
      * @return TaskList loaded from storage, or empty TaskList if loading fails.
      */
     private TaskList loadTasksOrDefault() {
+        boolean hasOffHeapDescriptions =
+                Boolean.parseBoolean(System.getProperty(TaskList.PROPERTY_OFF_HEAP_DESCRIPTIONS));
         try {
-            return new TaskList(storage.loadTasks());
+            LoadReport report = new LoadReport();
+            List<Task> loadedTasks = storage.loadTasks(report);
+            TaskList loaded = new TaskList(loadedTasks, storage.getLastId(), hasOffHeapDescriptions);
+            if (report.hasProblems()) {
+                ui.showLoadReport(report);
+            }
+            return loaded;
         } catch (SejongException e) {
             ui.showLoadingError();
-            return new TaskList();
+            return new TaskList(List.of(), hasOffHeapDescriptions);
         }
     }
 
+    /**
+     * Opens a new session on the shared task list, for a front end whose user needs transactions
+     * of their own.
+     *
+     * @return New session.
+     */
+    public Session openSession() {
+        return new Session(tasks, storage);
+    }
+
+    /**
+     * Waits until every change queued for the disk has been written, for front ends that stop
+     * without a {@code bye}.
+     *
+     * @throws SejongException If a queued change could not be written.
+     */
+    public void flush() throws SejongException {
+        storage.flush();
+    }
+
     /**
      * Runs the chatbot.
      */
@@ -76,7 +143,7 @@ public class Sejong {
                 assert fullCommand != null : "Command should not be null";
                 Command c = Parser.parse(fullCommand);
                 assert c != null : "Parsed command should not be null";
-                c.execute(tasks, ui, storage);
+                c.execute(session, ui);
                 isExit = c.isExit();
             } catch (SejongException e) {
                 ui.showError(e.getMessage());
@@ -88,31 +155,198 @@ public class Sejong {
     /**
      * Processes one user input and returns the bot's response (for GUI).
      * Empty input shows the welcome message.
+     * Each call captures its response separately, but all calls share one session, so front ends
+     * that run at the same time should use {@link #respond} with sessions of their own.
      *
      * @param input User command string.
      * @return The bot's response text to display.
      */
     public String getResponse(String input) {
-        ui.clearResponse();
+        Ui responseUi = new Ui(new StringBuilder());
+        respond(input, responseUi, session);
+        return responseUi.getAndClearResponse();
+    }
+
+    /**
+     * Processes one user input in a session and shows the response on the given Ui.
+     * Empty input shows the welcome message. Safe to call from several threads, each with its own Ui
+     * and session.
+     *
+     * @param input      User command string.
+     * @param responseUi Ui that captures the response.
+     * @param session    Session the input belongs to, from {@link #openSession}.
+     * @return True if the input ends the session.
+     */
+    public boolean respond(String input, Ui responseUi, Session session) {
         if (input == null || input.trim().isEmpty()) {
-            ui.showWelcome();
-            return ui.getAndClearResponse();
+            responseUi.showWelcome();
+            return false;
         }
         try {
             Command c = Parser.parse(input.trim());
             assert c != null : "Parsed command should not be null";
-            c.execute(tasks, ui, storage);
-            return ui.getAndClearResponse();
+            c.execute(session, responseUi);
+            return c.isExit();
         } catch (SejongException e) {
-            ui.showError(e.getMessage());
-            return ui.getAndClearResponse();
+            responseUi.showError(e.getMessage());
+            return false;
         }
     }
 
+    /**
+     * Runs a script of commands and writes exactly the output {@link #run} would, as a pipeline.
+     * Lines are read in chunks; while the calling thread applies one chunk to the task list in input
+     * order, worker threads parse the next. The changes a chunk makes are saved together once the chunk
+     * has been applied, so a crash loses at most the changes of the chunk in progress. The output is
+     * buffered and flushed at the end.
+     *
+     * @param in  Script to run, one command per line.
+     * @param out Writer for the output.
+     * @throws IOException If the script cannot be read or the output cannot be written.
+     */
+    public void runBatch(BufferedReader in, Writer out) throws IOException {
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        ExecutorService parsers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "sejong-batch-parser");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Ui batchUi = new Ui(new StringBuilder());
+        storage.beginBatch();
+        try {
+            batchUi.showWelcome();
+            write(out, batchUi);
+            boolean isExit = false;
+            List<Future<ParsedLine[]>> chunk = parseChunk(readChunk(in), parsers, parallelism);
+            while (!isExit && !chunk.isEmpty()) {
+                List<Future<ParsedLine[]>> nextChunk = parseChunk(readChunk(in), parsers, parallelism);
+                for (Future<ParsedLine[]> slice : chunk) {
+                    for (ParsedLine parsed : await(slice)) {
+                        if (isExit) {
+                            break;
+                        }
+                        isExit = apply(parsed, batchUi);
+                        write(out, batchUi);
+                    }
+                }
+                saveBatch(out, batchUi);
+                storage.beginBatch();
+                chunk = nextChunk;
+            }
+        } finally {
+            parsers.shutdownNow();
+            saveBatch(out, batchUi);
+            out.flush();
+        }
+    }
+
+    /**
+     * Saves the changes batched so far, showing a write error the way a failed command shows its error.
+     */
+    private void saveBatch(Writer out, Ui batchUi) throws IOException {
+        try {
+            storage.endBatch(tasks);
+        } catch (SejongException e) {
+            batchUi.showError(e.getMessage());
+            write(out, batchUi);
+        }
+    }
+
+    private static List<String> readChunk(BufferedReader in) throws IOException {
+        List<String> lines = new ArrayList<>(BATCH_CHUNK_LINES);
+        String line;
+        while (lines.size() < BATCH_CHUNK_LINES && (line = in.readLine()) != null) {
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    /**
+     * Starts parsing a chunk of lines, split into one slice per worker.
+     *
+     * @return Parsed slices, in input order.
+     */
+    private static List<Future<ParsedLine[]>> parseChunk(List<String> lines, ExecutorService parsers,
+                                                         int parallelism) {
+        List<Future<ParsedLine[]>> slices = new ArrayList<>(parallelism);
+        int sliceSize = (lines.size() + parallelism - 1) / parallelism;
+        for (int start = 0; start < lines.size(); start += sliceSize) {
+            List<String> slice = lines.subList(start, Math.min(lines.size(), start + sliceSize));
+            slices.add(parsers.submit(() -> {
+                ParsedLine[] parsed = new ParsedLine[slice.size()];
+                for (int i = 0; i < parsed.length; i++) {
+                    try {
+                        parsed[i] = new ParsedLine(Parser.parse(slice.get(i).trim()), null);
+                    } catch (SejongException e) {
+                        parsed[i] = new ParsedLine(null, e);
+                    } catch (RuntimeException e) {
+                        // Shown for this line alone, rather than failing the slice and every line in it
+                        parsed[i] = new ParsedLine(null, new SejongException(ERROR_UNKNOWN_COMMAND));
+                    }
+                }
+                return parsed;
+            }));
+        }
+        return slices;
+    }
+
+    private static ParsedLine[] await(Future<ParsedLine[]> slice) throws IOException {
+        try {
+            return slice.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Batch run was interrupted");
+        } catch (ExecutionException e) {
+            // Every parse error is kept with its line, so only an Error such as running out of memory gets here
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new AssertionError("Parse errors should be kept with their lines", cause);
+        }
+    }
+
+    /**
+     * Executes a parsed line, or shows its parse error, the way {@link #run} handles a line.
+     *
+     * @return True if the command ends the run.
+     */
+    private boolean apply(ParsedLine parsed, Ui batchUi) {
+        if (parsed.error != null) {
+            batchUi.showError(parsed.error.getMessage());
+            return false;
+        }
+        assert parsed.command != null : "Parsed command should not be null";
+        try {
+            parsed.command.execute(session, batchUi);
+            return parsed.command.isExit();
+        } catch (SejongException e) {
+            batchUi.showError(e.getMessage());
+            return false;
+        }
+    }
+
+    private static void write(Writer out, Ui batchUi) throws IOException {
+        String response = batchUi.getAndClearResponse();
+        // Match the line separator System.out.println uses in the interactive run
+        out.write(response.replace("\n", System.lineSeparator()));
+    }
+
     /**
      * Main entry point for CLI. For GUI, use Launcher instead.
+     * With {@code --batch}, runs the commands on standard input through {@link #runBatch}.
      */
     public static void main(String... args) {
-        new Sejong(DEFAULT_FILE_PATH).run();
+        Sejong sejong = new Sejong(DEFAULT_FILE_PATH);
+        if (args.length == 0 || !args[0].equals(BATCH_FLAG)) {
+            sejong.run();
+            return;
+        }
+        try {
+            sejong.runBatch(new BufferedReader(new InputStreamReader(System.in)),
+                    new BufferedWriter(new OutputStreamWriter(System.out)));
+        } catch (IOException e) {
+            System.err.println("Batch run failed: " + e.getMessage());
+        }
     }
 }
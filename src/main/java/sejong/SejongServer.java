@@ -0,0 +1,216 @@
+package sejong;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static sejong.Constants.DEFAULT_FILE_PATH;
+import static sejong.Constants.DEFAULT_SERVER_PORT;
+
+/**
+ * Serves one Sejong instance to many clients over a line protocol on a local TCP port.
+ * Each line a client sends is run as a command, exactly as typed in the console, and answered with
+ * the response lines followed by a line holding a single dot. As in SMTP, a response line that starts
+ * with a dot is sent with a second dot in front, so it cannot be mistaken for the end. A client is
+ * greeted on connecting, and its connection is closed after {@code bye}. Every session runs on its own
+ * thread with its own Ui and {@link Session}, so each client's transactions are its own, and all sessions
+ * share the thread-safe task list. Only connections from this machine are accepted.
+ * <p>
+ * Run as a program, the server stops on an interrupt or termination signal. It waits for the
+ * commands in progress and writes any queued changes before the process exits.
+ */
+public class SejongServer implements Closeable {
+    /** Stack size of session threads; sessions only parse one line at a time, so thousands fit. */
+    private static final long SESSION_STACK_SIZE = 256 * 1024;
+    /** Connections the operating system may queue before they are accepted. */
+    private static final int ACCEPT_BACKLOG = 1024;
+    /** Line that ends each response. */
+    private static final String END_OF_RESPONSE = ".";
+    /** Longest time {@link #close} waits for the commands in progress to finish. */
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+    private final Sejong sejong;
+    private final String notice;
+    private final ServerSocket serverSocket;
+    private final ExecutorService sessions;
+    private final Set<Socket> clients = ConcurrentHashMap.newKeySet();
+    private final Thread acceptThread;
+
+    /**
+     * Binds a server for a Sejong instance to a port on the loopback address. Call {@link #start}
+     * to begin accepting clients.
+     *
+     * @param sejong Instance whose task list the clients share.
+     * @param port   Port to listen on, or 0 for any free port.
+     * @throws IOException If the port cannot be bound.
+     */
+    public SejongServer(Sejong sejong, int port) throws IOException {
+        this(sejong, port, "");
+    }
+
+    /**
+     * Binds a server that also shows every client a notice after the greeting, such as the problems
+     * found while loading the tasks.
+     *
+     * @param sejong Instance whose task list the clients share.
+     * @param port   Port to listen on, or 0 for any free port.
+     * @param notice Response lines to show after the greeting, or an empty string.
+     * @throws IOException If the port cannot be bound.
+     */
+    public SejongServer(Sejong sejong, int port, String notice) throws IOException {
+        assert sejong != null : "Sejong instance should not be null";
+        assert notice != null : "Notice should not be null";
+        this.sejong = sejong;
+        this.notice = notice;
+        this.serverSocket = new ServerSocket(port, ACCEPT_BACKLOG, InetAddress.getLoopbackAddress());
+        this.sessions = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(null, runnable, "sejong-session", SESSION_STACK_SIZE);
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.acceptThread = new Thread(this::acceptClients, "sejong-accept");
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return Local port.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Starts accepting clients in the background.
+     */
+    public void start() {
+        acceptThread.start();
+    }
+
+    /**
+     * Stops accepting clients, disconnects every connected client, and waits for the commands in
+     * progress to finish, so that their changes have been saved or queued when this returns.
+     *
+     * @throws IOException If the listening socket cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Socket client : clients) {
+            client.close();
+        }
+        sessions.shutdown();
+        try {
+            acceptThread.join();
+            sessions.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void acceptClients() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket client = serverSocket.accept();
+                clients.add(client);
+                try {
+                    sessions.execute(() -> serve(client));
+                } catch (RejectedExecutionException e) {
+                    // The server closed while this client was being accepted
+                    clients.remove(client);
+                    client.close();
+                }
+            } catch (IOException e) {
+                // Thrown by accept once the server is closed, which ends the loop
+            }
+        }
+    }
+
+    private void serve(Socket client) {
+        Ui ui = new Ui(new StringBuilder());
+        Session session = sejong.openSession();
+        try (client;
+             BufferedReader in = new BufferedReader(
+                     new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(
+                     new OutputStreamWriter(client.getOutputStream(), StandardCharsets.UTF_8))) {
+            sejong.respond("", ui, session);
+            send(out, ui.getAndClearResponse() + notice);
+            boolean isExit = false;
+            String line;
+            while (!isExit && (line = in.readLine()) != null) {
+                isExit = sejong.respond(line, ui, session);
+                send(out, ui.getAndClearResponse());
+            }
+        } catch (IOException e) {
+            // The client disconnected; its changes have already been saved
+        } finally {
+            clients.remove(client);
+        }
+    }
+
+    /**
+     * Sends one response, dot-stuffed and followed by the line that ends it.
+     *
+     * @param out      Writer to the client.
+     * @param response Response lines, each ending with a newline.
+     * @throws IOException If the client cannot be written to.
+     */
+    static void send(Writer out, String response) throws IOException {
+        for (String line : response.split("\n")) {
+            if (line.startsWith(END_OF_RESPONSE)) {
+                out.write(END_OF_RESPONSE);
+            }
+            out.write(line);
+            out.write('\n');
+        }
+        out.write(END_OF_RESPONSE);
+        out.write('\n');
+        out.flush();
+    }
+
+    /**
+     * Entry point for server mode.
+     *
+     * @param args Optional port to listen on.
+     */
+    public static void main(String... args) throws IOException {
+        int port = DEFAULT_SERVER_PORT;
+        if (args.length > 0) {
+            try {
+                port = Integer.parseInt(args[0]);
+            } catch (NumberFormatException e) {
+                System.err.println("Usage: SejongServer [port]");
+                return;
+            }
+        }
+        // Problems loading the tasks go to the clients rather than to the console of the server
+        StringBuilder loadMessages = new StringBuilder();
+        Sejong sejong = new Sejong(DEFAULT_FILE_PATH, loadMessages);
+        SejongServer server = new SejongServer(sejong, port, loadMessages.toString());
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+                sejong.flush();
+            } catch (IOException | SejongException e) {
+                System.err.println("Sejong could not stop cleanly: " + e.getMessage());
+            }
+        }, "sejong-shutdown"));
+        server.start();
+        System.out.println("Sejong is serving on localhost:" + server.getPort());
+    }
+}
@@ -0,0 +1,102 @@
+package sejong;
+
+import static sejong.Messages.ERROR_NO_TRANSACTION;
+import static sejong.Messages.ERROR_TRANSACTION_ALREADY_OPEN;
+
+/**
+ * One user's view of a shared task list. Outside a transaction, commands change the shared list and
+ * each change is saved at once. Between {@link #begin} and {@link #commit} or {@link #rollback},
+ * commands change a staged list on top of a snapshot instead, and the changes only reach the shared
+ * list and the disk on commit. A session is used by one thread at a time.
+ */
+public class Session {
+    private final TaskList tasks;
+    private final Storage storage;
+    private Transaction transaction;
+
+    /**
+     * Creates a session on a shared task list.
+     *
+     * @param tasks   Shared task list.
+     * @param storage Storage of the shared task list.
+     */
+    public Session(TaskList tasks, Storage storage) {
+        assert tasks != null : "Task list should not be null";
+        assert storage != null : "Storage should not be null";
+        this.tasks = tasks;
+        this.storage = storage;
+    }
+
+    /**
+     * Returns the task list commands should work on: the staged list during a transaction,
+     * otherwise the shared list.
+     *
+     * @return Current task list.
+     */
+    public TaskList getTasks() {
+        return transaction == null ? tasks : transaction.getTasks();
+    }
+
+    /**
+     * Returns the storage commands should save to: the staging storage during a transaction,
+     * otherwise the shared storage.
+     *
+     * @return Current storage.
+     */
+    public Storage getStorage() {
+        return transaction == null ? storage : transaction.getStorage();
+    }
+
+    /**
+     * Returns whether a transaction is open.
+     *
+     * @return True between begin and commit or rollback.
+     */
+    public boolean hasTransaction() {
+        return transaction != null;
+    }
+
+    /**
+     * Opens a transaction on a snapshot of the current tasks.
+     *
+     * @throws SejongException If a transaction is already open.
+     */
+    public void begin() throws SejongException {
+        if (transaction != null) {
+            throw new SejongException(ERROR_TRANSACTION_ALREADY_OPEN);
+        }
+        transaction = Transaction.begin(tasks, storage);
+    }
+
+    /**
+     * Applies the changes made in the transaction to the shared list and saves them with a single write.
+     * The transaction is closed even if the commit fails, in which case none of its changes are applied.
+     *
+     * @return Number of changes committed.
+     * @throws SejongException If no transaction is open, a task changed in it was deleted elsewhere,
+     *                         or the changes cannot be saved.
+     */
+    public int commit() throws SejongException {
+        Transaction committing = close();
+        return committing.commit(tasks, storage);
+    }
+
+    /**
+     * Discards the changes made in the transaction.
+     *
+     * @return Number of changes discarded.
+     * @throws SejongException If no transaction is open.
+     */
+    public int rollback() throws SejongException {
+        return close().rollback();
+    }
+
+    private Transaction close() throws SejongException {
+        if (transaction == null) {
+            throw new SejongException(ERROR_NO_TRANSACTION);
+        }
+        Transaction closed = transaction;
+        transaction = null;
+        return closed;
+    }
+}
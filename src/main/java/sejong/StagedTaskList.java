@@ -0,0 +1,274 @@
+package sejong;
+
+import static sejong.Messages.ERROR_INVALID_TASK_NUMBER;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import sejong.storage.Mutation;
+import sejong.task.Task;
+import sejong.util.PersistentList;
+
+/**
+ * Task list of a transaction: the changes made in the transaction, kept on top of a snapshot of the shared
+ * list. Taking the snapshot is O(1), and reading, adding, marking and deleting a task change only the
+ * O(log n) nodes of the snapshot on their path. The indexes that searches and counts need are built from
+ * the staged tasks, with the shared list's off-heap setting, only when the transaction first uses them,
+ * and kept up to date from then on.
+ * <p>
+ * Each change is also recorded by the id of the task it affects, so that {@link Transaction#commit} can
+ * apply it to the shared list at whatever position the task has there by then. Duplicate checks look at
+ * the shared list as it is now, adjusted by the changes made in the transaction, since that is the list
+ * the changes will be committed to. A staged list is used by one thread at a time.
+ */
+class StagedTaskList extends TaskList {
+    /**
+     * A change made in the transaction, by the id of the task it affects.
+     */
+    static final class Change {
+        private final Mutation.Kind kind;
+        private final int id;
+        private final Task task;
+
+        private Change(Mutation.Kind kind, Task task) {
+            this.kind = kind;
+            this.id = task.getId();
+            this.task = task;
+        }
+
+        Mutation.Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * Returns the id the affected task has in the transaction.
+         */
+        int getId() {
+            return id;
+        }
+
+        /**
+         * Returns the affected task as it was when the change was made, which for an add is the new task.
+         */
+        Task getTask() {
+            return task;
+        }
+    }
+
+    private final TaskList shared;
+    /** Staged tasks in list order; ids increase along the list. */
+    private final PersistentList<Task> tasks;
+    private int lastId;
+    private final List<Change> changes = new ArrayList<>();
+    /** Change the staged changes make to the number of tasks under each duplicate key. */
+    private final Map<String, Integer> duplicateDeltas = new HashMap<>();
+    /** Whether the inherited indexes hold the staged tasks. */
+    private boolean isIndexed;
+
+    /**
+     * Creates a staged list on a snapshot of the shared list.
+     *
+     * @param shared   Shared task list, for its duplicate counts and off-heap setting.
+     * @param snapshot Tasks of the shared list when the transaction began.
+     * @param lastId   Last id the shared list had given out by then.
+     */
+    StagedTaskList(TaskList shared, PersistentList<Task> snapshot, int lastId) {
+        super(List.of(), 0, shared.hasOffHeapDescriptions());
+        this.shared = shared;
+        this.tasks = snapshot;
+        this.lastId = lastId;
+    }
+
+    /**
+     * Returns the changes made so far, in order.
+     *
+     * @return Staged changes.
+     */
+    List<Change> getChanges() {
+        return changes;
+    }
+
+    @Override
+    public void addTask(Task task) {
+        assert task != null : "Task should not be null";
+        if (task.getId() <= lastId) {
+            task.setId(lastId + 1);
+        }
+        lastId = task.getId();
+        if (isIndexed) {
+            super.addTask(task);
+        }
+        tasks.add(task);
+        changes.add(new Change(Mutation.Kind.ADD, task));
+        countDuplicate(task, 1);
+    }
+
+    @Override
+    public boolean addTaskIfAbsent(Task task) {
+        if (hasDuplicate(task)) {
+            return false;
+        }
+        addTask(task);
+        return true;
+    }
+
+    @Override
+    public boolean hasDuplicate(Task task) {
+        String key = TaskList.duplicateKey(task);
+        return key != null && shared.countDuplicates(task) + duplicateDeltas.getOrDefault(key, 0) > 0;
+    }
+
+    private void countDuplicate(Task task, int delta) {
+        String key = TaskList.duplicateKey(task);
+        if (key != null) {
+            duplicateDeltas.merge(key, delta, Integer::sum);
+        }
+    }
+
+    @Override
+    public Task deleteTask(int index) throws SejongException {
+        checkIndex(index);
+        Task deleted = isIndexed ? super.deleteTask(index) : tasks.get(index);
+        tasks.remove(index);
+        changes.add(new Change(Mutation.Kind.DELETE, deleted));
+        countDuplicate(deleted, -1);
+        return deleted;
+    }
+
+    @Override
+    public Task markTask(int index) throws SejongException {
+        return setDone(index, true);
+    }
+
+    @Override
+    public Task unmarkTask(int index) throws SejongException {
+        return setDone(index, false);
+    }
+
+    private Task setDone(int index, boolean isDone) throws SejongException {
+        checkIndex(index);
+        Task updated;
+        if (isIndexed) {
+            updated = isDone ? super.markTask(index) : super.unmarkTask(index);
+        } else {
+            Task task = tasks.get(index);
+            updated = task.isDone() == isDone ? task : task.withDone(isDone);
+        }
+        tasks.set(index, updated);
+        changes.add(new Change(isDone ? Mutation.Kind.MARK : Mutation.Kind.UNMARK, updated));
+        return updated;
+    }
+
+    /**
+     * Finds a task by binary search on the ids, which increase along the list, in O(log^2 n).
+     */
+    @Override
+    public int indexOfId(int id) {
+        int low = 0;
+        int high = tasks.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int middleId = tasks.get(middle).getId();
+            if (middleId < id) {
+                low = middle + 1;
+            } else if (middleId > id) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public Task getTask(int index) throws SejongException {
+        checkIndex(index);
+        return tasks.get(index);
+    }
+
+    private void checkIndex(int index) throws SejongException {
+        if (index < 0 || index >= tasks.size()) {
+            throw new SejongException(ERROR_INVALID_TASK_NUMBER);
+        }
+    }
+
+    @Override
+    public int countTasks(SearchCriteria.TaskType type, SearchCriteria.CompletionStatus status) {
+        buildIndexes();
+        return super.countTasks(type, status);
+    }
+
+    @Override
+    public List<Task> findTasksOnDate(LocalDate date) {
+        buildIndexes();
+        return super.findTasksOnDate(date);
+    }
+
+    @Override
+    public List<Task> findTasksBetween(LocalDate from, LocalDate to) {
+        buildIndexes();
+        return super.findTasksBetween(from, to);
+    }
+
+    @Override
+    public List<Task> findTasksByKeyword(String keyword) {
+        buildIndexes();
+        return super.findTasksByKeyword(keyword);
+    }
+
+    @Override
+    public List<Task> findTasks(SearchCriteria criteria) {
+        buildIndexes();
+        return super.findTasks(criteria);
+    }
+
+    @Override
+    public QueryCache getQueryCache() {
+        buildIndexes();
+        return super.getQueryCache();
+    }
+
+    @Override
+    public QueryPlan planQuery(SearchCriteria criteria) {
+        buildIndexes();
+        return super.planQuery(criteria);
+    }
+
+    /**
+     * Builds the inherited indexes from the staged tasks in O(n), the first time they are needed.
+     */
+    private void buildIndexes() {
+        if (!isIndexed) {
+            load(tasks, lastId);
+            isIndexed = true;
+        }
+    }
+
+    @Override
+    public int size() {
+        return tasks.size();
+    }
+
+    @Override
+    public int getLastId() {
+        return lastId;
+    }
+
+    @Override
+    long getVersion() {
+        return changes.size();
+    }
+
+    @Override
+    public List<Task> getTasks() {
+        return getSnapshot();
+    }
+
+    @Override
+    PersistentList<Task> getSnapshot() {
+        return tasks.snapshot();
+    }
+}
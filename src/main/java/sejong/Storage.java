@@ -1,72 +1,140 @@
 package sejong;
 
-import sejong.task.Deadline;
-import sejong.task.Event;
+import sejong.storage.AtomicFile;
+import sejong.storage.DataFile;
+import sejong.storage.Journal;
+import sejong.storage.LoadReport;
+import sejong.storage.Mutation;
+import sejong.storage.StatusIndex;
+import sejong.storage.StorageConfig;
+import sejong.storage.TaskLineFormat;
+import sejong.storage.WriteBehindQueue;
 import sejong.task.Task;
-import sejong.task.Todo;
 
-import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Handles loading and saving tasks to/from a file.
+ * In journal mode, each mutation is appended to a journal next to the data file instead of
+ * rewriting the whole file; the journal is replayed on top of the data file when loading.
+ * Once the journal passes the configured compaction thresholds, a background thread folds it into a
+ * new snapshot of the data file and truncates the records the snapshot covers.
+ * The data file is never truncated in place: every full write goes through {@link AtomicFile}.
+ * With write-behind enabled, mutations are handed to a persistence thread that writes them in batches;
+ * call {@link #flush()} before exiting to make sure everything queued has reached the disk.
+ * Large data files can optionally be parsed in parallel chunks; see {@link DataFile}.
+ * In rewrite mode, marking or unmarking a task patches its status byte in place through a
+ * {@link StatusIndex} rather than rewriting the file; other changes still replace the file atomically.
  */
 public class Storage {
-    /** Delimiter used in file format. */
-    private static final String DELIMITER = " | ";
-    /** Placeholder for pipe characters inside task descriptions to avoid delimiter collision. */
-    private static final String PIPE_PLACEHOLDER = "<<<PIPE>>>";
-    
     private final String filePath;
+    private final StorageConfig config;
+    private final Journal journal;
+    /** Guards the journal and the counters below against the compaction thread. */
+    private final Object journalLock = new Object();
+    /** Held for the whole of a compaction or full save, so snapshots are never installed out of order. */
+    private final Object snapshotLock = new Object();
+    /** Sequence number of the most recent journal record written or replayed. */
+    private long lastSequence;
+    /** Highest task id loaded or saved, including deleted tasks, recorded in every snapshot. */
+    private int lastId;
+    /** Size of the journal in bytes. */
+    private long journalBytes;
+    /** Number of journal records not yet covered by the data file. */
+    private long journalRecords;
+    /** Replay cost per journal record measured during the last load, or 0 if unknown. */
+    private long replayNanosPerRecord;
+    private ExecutorService compactionExecutor;
+    private Future<?> pendingCompaction;
+    /** Persistence thread in write-behind mode; null until the first load or save. */
+    private WriteBehindQueue writeBehindQueue;
+    /** Private copy of the task list kept by the write-behind thread, to rewrite the whole file from. */
+    private List<Task> writeBehindTasks;
+    /** Whether a write-behind batch failed to write, so the next one must write a full snapshot. */
+    private boolean hasLostWriteBehindBatch;
+    /** Record locations in the data file in rewrite mode, or null if unknown. Guarded by snapshotLock. */
+    private StatusIndex statusIndex;
+    /** Guards batchedMutations, which any thread that saves may read. */
+    private final Object batchLock = new Object();
+    /** Mutations saved since {@link #beginBatch}, or null when each save is written at once. Guarded by batchLock. */
+    private List<Mutation> batchedMutations;
 
     /**
-     * Creates a Storage instance with the specified file path.
+     * Creates a Storage instance with the specified file path and the default configuration.
      *
      * @param filePath Relative path to the storage file.
      */
     public Storage(String filePath) {
+        this(filePath, StorageConfig.defaults());
+    }
+
+    /**
+     * Creates a Storage instance with the specified file path and configuration.
+     *
+     * @param filePath Relative path to the storage file.
+     * @param config   Persistence settings.
+     */
+    public Storage(String filePath, StorageConfig config) {
         assert filePath != null : "File path should not be null";
         assert !filePath.isEmpty() : "File path should not be empty";
+        assert config != null : "Storage config should not be null";
         this.filePath = filePath;
+        this.config = config;
+        this.journal = new Journal(Paths.get(filePath + Journal.SUFFIX), config.getDurability());
     }
 
     /**
-     * Loads tasks from the storage file.
+     * Loads tasks from the storage file, then replays any journal records not yet in the file.
      *
      * @return List of tasks loaded from file.
      * @throws SejongException If there is an error loading the file.
      */
     public List<Task> loadTasks() throws SejongException {
-        List<Task> tasks = new ArrayList<>();
-        File file = new File(filePath);
-
-        // If file doesn't exist, return empty list
-        if (!file.exists()) {
-            return tasks;
-        }
+        return loadTasks(new LoadReport());
+    }
 
+    /**
+     * Loads tasks from the storage file, then replays any journal records not yet in the file.
+     * Lines and records that are corrupted or fail their checksum are skipped and described in the report.
+     *
+     * @param report Report to fill with the number of lines read and the records skipped.
+     * @return List of tasks loaded from file.
+     * @throws SejongException If there is an error loading the file.
+     */
+    public List<Task> loadTasks(LoadReport report) throws SejongException {
+        assert report != null : "Load report should not be null";
+        List<Task> tasks = new ArrayList<>();
         try {
-            List<String> lines = Files.readAllLines(Paths.get(filePath));
-            for (String line : lines) {
-                if (line.trim().isEmpty()) {
-                    continue;
-                }
-                try {
-                    Task task = parseTask(line);
-                    assert task != null : "Parsed task should not be null";
-                    tasks.add(task);
-                } catch (Exception e) {
-                    // Skip corrupted lines but continue loading
-                    // Note: Errors are silently ignored to allow graceful recovery from corrupted data
+            StatusIndex index = config.isJournaled() ? null : new StatusIndex();
+            long fileSequence = DataFile.read(Paths.get(filePath), tasks, config.isParallelLoading(), index, report);
+            long replayStart = System.nanoTime();
+            long replayedSequence = journal.recover(tasks, fileSequence, report);
+            long replayNanos = System.nanoTime() - replayStart;
+            synchronized (journalLock) {
+                lastId = Math.max(report.getLastId(), tasks.isEmpty() ? 0 : tasks.get(tasks.size() - 1).getId());
+                lastSequence = replayedSequence;
+                journalRecords = replayedSequence - fileSequence;
+                journalBytes = journal.size();
+                if (journalRecords > 0) {
+                    replayNanosPerRecord = replayNanos / journalRecords;
                 }
             }
+            synchronized (snapshotLock) {
+                // Replayed journal records leave the file offsets behind the loaded list
+                statusIndex = index != null && index.size() == tasks.size() ? index : null;
+            }
+            if (config.isWriteBehind() && writeBehindQueue == null) {
+                startWriteBehind(tasks);
+            }
         } catch (IOException e) {
             throw new SejongException("Error loading tasks from file: " + e.getMessage());
         }
@@ -75,124 +143,392 @@ public class Storage {
     }
 
     /**
-     * Saves tasks to the storage file.
+     * Returns the highest task id loaded or saved through this storage, including ids of tasks deleted
+     * since, so that a task list built from the loaded tasks never gives an id out twice.
      *
-     * @param tasks List of tasks to save.
-     * @throws SejongException If there is an error saving the file.
+     * @return Last id, or 0 if no task was ever saved.
      */
-    public void saveTasks(List<Task> tasks) throws SejongException {
+    public int getLastId() {
+        synchronized (journalLock) {
+            return lastId;
+        }
+    }
+
+    private void recordLastId(int id) {
+        synchronized (journalLock) {
+            lastId = Math.max(lastId, id);
+        }
+    }
+
+    /**
+     * Reads the tasks in the data file, without replaying the journal.
+     *
+     * @param tasks List to add the loaded tasks to.
+     * @return Journal sequence number covered by the data file, or 0 if it has no header.
+     * @throws IOException If the file cannot be read.
+     */
+    private long readDataFile(List<Task> tasks) throws IOException {
+        return DataFile.read(Paths.get(filePath), tasks, config.isParallelLoading());
+    }
+
+    /**
+     * Persists a single mutation that has already been applied to the task list.
+     * In journal mode only the mutation is appended; otherwise the whole list is rewritten.
+     *
+     * @param tasks    Task list after the mutation.
+     * @param mutation Change that was applied.
+     * @throws SejongException If there is an error writing to disk.
+     */
+    public void save(TaskList tasks, Mutation mutation) throws SejongException {
         assert tasks != null : "Task list should not be null";
-        try {
-            // Create directory if it doesn't exist
-            Path path = Paths.get(filePath);
-            Path parentDir = path.getParent();
-            if (parentDir != null && !Files.exists(parentDir)) {
-                Files.createDirectories(parentDir);
+        assert mutation != null : "Mutation should not be null";
+        recordLastId(tasks.getLastId());
+        synchronized (batchLock) {
+            if (batchedMutations != null) {
+                batchedMutations.add(mutation);
+                return;
             }
+        }
+        if (writeBehindQueue != null) {
+            writeBehindQueue.enqueue(mutation);
+            return;
+        }
+        if (config.isJournaled()) {
+            appendToJournal(List.of(mutation));
+        } else if (!patchStatuses(List.of(mutation))) {
+            saveTasks(tasks.getTasks());
+        }
+        if (config.isWriteBehind()) {
+            // Nothing was loaded through this instance, so the first save is written synchronously
+            startWriteBehind(tasks.getTasks());
+        }
+    }
 
-            // Write tasks to file using try-with-resources for proper resource management
-            try (FileWriter writer = new FileWriter(filePath)) {
-                for (Task task : tasks) {
-                    writer.write(taskToLine(task) + System.lineSeparator());
-                }
-            }
-        } catch (IOException e) {
-            throw new SejongException("Error saving tasks to file: " + e.getMessage());
+    /**
+     * Holds back the mutations passed to {@link #save} until {@link #endBatch}, which persists them together.
+     */
+    public void beginBatch() {
+        synchronized (batchLock) {
+            batchedMutations = new ArrayList<>();
         }
     }
 
     /**
-     * Parses a line from the file into a Task object.
+     * Returns whether saves are being held back until {@link #endBatch}.
      *
-     * @param line Line from the file in format: TYPE | STATUS | DESCRIPTION | [ADDITIONAL]
-     * @return Parsed Task object.
-     * @throws SejongException If the line format is invalid.
+     * @return True between {@link #beginBatch} and {@link #endBatch} or {@link #takeBatch}.
      */
-    private Task parseTask(String line) throws SejongException {
-        assert line != null : "Line should not be null";
-        assert !line.isEmpty() : "Line should not be empty";
-        String[] parts = line.split("\\s\\|\\s");
-        if (parts.length < 3) {
-            throw new SejongException("Invalid task format");
+    public boolean isBatching() {
+        synchronized (batchLock) {
+            return batchedMutations != null;
         }
+    }
 
-        String type = parts[0].trim();
-        boolean isDone = parts[1].trim().equals("1");
-        String description = unescapePipes(parts[2].trim());
-        assert !description.isEmpty() : "Description should not be empty";
+    /**
+     * Persists every mutation saved since {@link #beginBatch} at once, and goes back to writing each
+     * save immediately. In journal mode the mutations are appended in one write; otherwise the data file
+     * is patched or rewritten once. With write-behind, they are queued to be written in the same batch.
+     *
+     * @param tasks Task list after the mutations.
+     * @throws SejongException If there is an error writing to disk.
+     */
+    public void endBatch(TaskList tasks) throws SejongException {
+        recordLastId(tasks.getLastId());
+        List<Mutation> batch = takeBatch();
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (writeBehindQueue != null) {
+            writeBehindQueue.enqueueAll(batch);
+            return;
+        }
+        if (config.isJournaled()) {
+            appendToJournal(batch);
+        } else if (!patchStatuses(batch)) {
+            saveTasks(tasks.getTasks());
+        }
+        if (config.isWriteBehind()) {
+            startWriteBehind(tasks.getTasks());
+        }
+    }
 
-        switch (type) {
-        case "T":
-            return new Todo(description, isDone);
-        case "D":
-            if (parts.length < 4) {
-                throw new SejongException("Invalid deadline format");
+    /**
+     * Creates a storage for the same file that holds back every save, for staging changes that are
+     * persisted later through this storage. Collect the staged changes with {@link #takeBatch}.
+     *
+     * @return Storage in batch mode.
+     */
+    public Storage stage() {
+        Storage staged = new Storage(filePath, config);
+        staged.beginBatch();
+        return staged;
+    }
+
+    /**
+     * Returns the mutations saved since {@link #beginBatch} without persisting them, and goes back to
+     * writing each save immediately.
+     *
+     * @return Held-back mutations in the order they were saved.
+     */
+    public List<Mutation> takeBatch() {
+        synchronized (batchLock) {
+            List<Mutation> batch = batchedMutations == null ? new ArrayList<>() : batchedMutations;
+            batchedMutations = null;
+            return batch;
+        }
+    }
+
+    /**
+     * Waits until every mutation queued for the write-behind thread has been written.
+     * Returns immediately when write-behind is disabled.
+     *
+     * @throws SejongException If a queued mutation could not be written.
+     */
+    public void flush() throws SejongException {
+        if (writeBehindQueue != null) {
+            writeBehindQueue.flush();
+        }
+    }
+
+    /**
+     * Returns the number of batches the write-behind thread has written.
+     */
+    long getWriteBehindBatchCount() {
+        return writeBehindQueue == null ? 0 : writeBehindQueue.getBatchCount();
+    }
+
+    /**
+     * Starts the write-behind thread.
+     *
+     * @param tasks Current tasks, copied for the thread to rewrite the whole file from.
+     */
+    private void startWriteBehind(List<Task> tasks) {
+        writeBehindTasks = copyTasks(tasks);
+        writeBehindQueue = new WriteBehindQueue(config.getWriteBehindCapacity(),
+                config.getWriteBehindDelayMillis(), this::writeBatch);
+    }
+
+    /**
+     * Persists a batch of mutations on the write-behind thread: one journal append in journal mode,
+     * otherwise one patch or rewrite of the data file from the thread's copy of the list.
+     * After a batch has failed, later batches would not follow on from the file, so the next call
+     * writes a full snapshot of the thread's copy instead, which also covers the lost batch.
+     */
+    private void writeBatch(List<Mutation> batch) throws SejongException {
+        for (Mutation mutation : batch) {
+            mutation.applyTo(writeBehindTasks);
+        }
+        try {
+            if (hasLostWriteBehindBatch) {
+                writeAll(writeBehindTasks);
+            } else if (config.isJournaled()) {
+                appendToJournal(batch);
+            } else if (!patchStatuses(batch)) {
+                writeAll(writeBehindTasks);
             }
-            String byStr = parts[3].trim();
-            try {
-                LocalDate by = LocalDate.parse(byStr);
-                return new Deadline(description, by, isDone);
-            } catch (Exception e) {
-                throw new SejongException("Invalid deadline date format in storage: " + byStr);
+            hasLostWriteBehindBatch = false;
+        } catch (SejongException e) {
+            hasLostWriteBehindBatch = true;
+            throw e;
+        }
+    }
+
+    /**
+     * Writes a batch of status changes into the data file in place.
+     *
+     * @return True if the batch was written, false if it contains other changes or the data file
+     *         cannot be patched, in which case the caller must rewrite the file.
+     */
+    private boolean patchStatuses(List<Mutation> batch) throws SejongException {
+        synchronized (snapshotLock) {
+            if (statusIndex == null) {
+                return false;
             }
-        case "E":
-            if (parts.length < 5) {
-                throw new SejongException("Invalid event format");
+            for (Mutation mutation : batch) {
+                Mutation.Kind kind = mutation.getKind();
+                if ((kind != Mutation.Kind.MARK && kind != Mutation.Kind.UNMARK)
+                        || !statusIndex.canPatch(mutation.getIndex())) {
+                    return false;
+                }
+            }
+            for (Mutation mutation : batch) {
+                statusIndex.markDirty(mutation.getIndex(), mutation.getKind() == Mutation.Kind.MARK);
             }
-            String fromStr = parts[3].trim();
-            String toStr = parts[4].trim();
             try {
-                LocalDate from = LocalDate.parse(fromStr);
-                LocalDate to = LocalDate.parse(toStr);
-                return new Event(description, from, to, isDone);
-            } catch (Exception e) {
-                throw new SejongException("Invalid event date format in storage");
+                if (statusIndex.flush(Paths.get(filePath), config.getDurability())) {
+                    return true;
+                }
+                statusIndex = null;
+                return false;
+            } catch (IOException e) {
+                statusIndex = null;
+                throw new SejongException("Error saving tasks to file: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Appends mutations to the journal and starts a compaction if a threshold is reached.
+     */
+    private void appendToJournal(List<Mutation> mutations) throws SejongException {
+        try {
+            ensureParentDirectory();
+            synchronized (journalLock) {
+                journalBytes += journal.appendAll(lastSequence + 1, mutations);
+                lastSequence += mutations.size();
+                journalRecords += mutations.size();
+                if (config.getCompactionPolicy().shouldCompact(journalBytes, journalRecords, replayNanosPerRecord)) {
+                    scheduleCompaction();
+                }
             }
-        default:
-            throw new SejongException("Unknown task type: " + type);
+        } catch (IOException e) {
+            throw new SejongException("Error saving tasks to file: " + e.getMessage());
         }
     }
 
     /**
-     * Serializes a task to a storage line, escaping the description to prevent
-     * delimiter collision with pipe characters in the description text.
+     * Copies a list of tasks for the write-behind thread. The tasks themselves are shared: task lists
+     * never change the tasks they hold, and {@link Mutation#applyTo} replaces the tasks it marks.
+     */
+    private static List<Task> copyTasks(List<Task> tasks) {
+        return new ArrayList<>(tasks);
+    }
+
+    /**
+     * Folds the journal into a new snapshot of the data file and truncates the records it covers.
+     * The snapshot is rebuilt from disk rather than from the in-memory list, so commands can keep
+     * appending to the journal while it runs. Each step replaces its file atomically: if the process
+     * is killed part-way, the previous data file and journal are still consistent.
      *
-     * @param task Task to serialize.
-     * @return Storage-formatted line with escaped description.
+     * @throws SejongException If the snapshot cannot be written.
+     */
+    public void compact() throws SejongException {
+        synchronized (snapshotLock) {
+            try {
+                long targetSequence;
+                synchronized (journalLock) {
+                    targetSequence = lastSequence;
+                }
+                List<Task> snapshot = new ArrayList<>();
+                long fileSequence = readDataFile(snapshot);
+                if (fileSequence >= targetSequence) {
+                    return;
+                }
+                // Replay stops early at a record it cannot apply, and the snapshot covers only what it applied
+                long coveredSequence = journal.replay(snapshot, fileSequence, targetSequence);
+                if (coveredSequence == fileSequence) {
+                    return;
+                }
+                writeSnapshot(snapshot, coveredSequence);
+                synchronized (journalLock) {
+                    journal.truncateThrough(coveredSequence);
+                    journalBytes = journal.size();
+                    journalRecords = lastSequence - coveredSequence;
+                }
+            } catch (IOException e) {
+                throw new SejongException("Error compacting task journal: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Waits for a background compaction started by {@link #save}, if one is running.
      */
-    private String taskToLine(Task task) {
-        String desc = escapePipes(task.getDescription());
-        String status = task.isDone() ? "1" : "0";
+    void awaitCompaction() throws InterruptedException, ExecutionException {
+        Future<?> compaction;
+        synchronized (journalLock) {
+            compaction = pendingCompaction;
+        }
+        if (compaction != null) {
+            compaction.get();
+        }
+    }
 
-        if (task instanceof Deadline) {
-            Deadline d = (Deadline) task;
-            return "D" + DELIMITER + status + DELIMITER + desc + DELIMITER + d.getBy();
+    /**
+     * Starts a background compaction unless one is already pending. Must hold journalLock.
+     */
+    private void scheduleCompaction() {
+        if (pendingCompaction != null && !pendingCompaction.isDone()) {
+            return;
         }
-        if (task instanceof Event) {
-            Event e = (Event) task;
-            return "E" + DELIMITER + status + DELIMITER + desc + DELIMITER + e.getFrom() + DELIMITER + e.getTo();
+        if (compactionExecutor == null) {
+            compactionExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "sejong-compaction");
+                thread.setDaemon(true);
+                return thread;
+            });
         }
-        // Todo (or any future plain-text task)
-        return "T" + DELIMITER + status + DELIMITER + desc;
+        pendingCompaction = compactionExecutor.submit(() -> {
+            try {
+                compact();
+            } catch (SejongException e) {
+                // The journal is left untouched, so nothing is lost; compaction is retried on the next save
+            }
+        });
     }
 
     /**
-     * Escapes pipe characters in a string to prevent delimiter collision in storage.
+     * Saves tasks to the storage file. The file is replaced atomically, so a crash mid-save leaves the
+     * previous version intact. Any journal records are folded into the file and the journal is cleared.
      *
-     * @param text Text to escape.
-     * @return Text with pipe characters replaced by the placeholder.
+     * @param tasks List of tasks to save.
+     * @throws SejongException If there is an error saving the file.
      */
-    private static String escapePipes(String text) {
-        return text.replace("|", PIPE_PLACEHOLDER);
+    public void saveTasks(List<Task> tasks) throws SejongException {
+        assert tasks != null : "Task list should not be null";
+        flush();
+        if (!tasks.isEmpty()) {
+            recordLastId(tasks.get(tasks.size() - 1).getId());
+        }
+        writeAll(tasks);
+        if (writeBehindTasks != null) {
+            writeBehindTasks = copyTasks(tasks);
+        }
+    }
+
+    /**
+     * Replaces the data file with the given tasks and clears the journal it now covers.
+     */
+    private void writeAll(List<Task> tasks) throws SejongException {
+        synchronized (snapshotLock) {
+            try {
+                ensureParentDirectory();
+                synchronized (journalLock) {
+                    // Record how much of the journal this file covers, so a crash before the journal
+                    // is cleared does not replay the same records twice
+                    statusIndex = writeSnapshot(tasks, lastSequence);
+                    journal.clear();
+                    journalBytes = 0;
+                    journalRecords = 0;
+                }
+            } catch (IOException e) {
+                throw new SejongException("Error saving tasks to file: " + e.getMessage());
+            }
+        }
     }
 
     /**
-     * Unescapes pipe placeholders back to pipe characters after loading from storage.
+     * Atomically replaces the data file with the given tasks.
      *
-     * @param text Text with placeholders.
-     * @return Text with original pipe characters restored.
+     * @param tasks    Tasks in the snapshot.
+     * @param sequence Journal sequence number the snapshot covers, or 0 if there is no journal.
+     * @return Status offsets of the tasks in the new snapshot.
+     * @throws IOException If the snapshot cannot be written.
      */
-    private static String unescapePipes(String text) {
-        return text.replace(PIPE_PLACEHOLDER, "|");
+    private StatusIndex writeSnapshot(List<Task> tasks, long sequence) throws IOException {
+        return DataFile.write(Paths.get(filePath), config.getFormat(), config.getDurability(), tasks, sequence,
+                getLastId());
+    }
+
+    /**
+     * Creates the directory of the storage file if it doesn't exist.
+     *
+     * @throws IOException If the directory cannot be created.
+     */
+    private void ensureParentDirectory() throws IOException {
+        Path parentDir = Paths.get(filePath).getParent();
+        if (parentDir != null && !Files.exists(parentDir)) {
+            Files.createDirectories(parentDir);
+        }
     }
 }
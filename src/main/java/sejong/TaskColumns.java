@@ -0,0 +1,367 @@
+package sejong;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import sejong.task.Task;
+
+/**
+ * Struct-of-arrays copy of the task fields that searches read, one entry per slot of a {@link TaskList}:
+ * a type code, the first and last epoch day the task falls on, and the lowercased description, packed
+ * with all the others into a single char arena. Residual search checks run over these primitive
+ * columns instead of following each Task's pointers to its description and LocalDate objects.
+ * Completion status is kept as a bitset by the task list itself.
+ * <p>
+ * Optionally the descriptions are kept off the heap instead, as UTF-8 in direct byte buffers of
+ * {@value #CHUNK_SIZE} bytes each, and keywords are matched against the bytes without decoding them.
+ * UTF-8 is self-synchronizing, so a keyword's bytes occur in a description's bytes exactly when the
+ * keyword occurs in the description. Unpaired surrogates are encoded as three bytes each, the way
+ * WTF-8 does, so that every description round-trips.
+ */
+public class TaskColumns {
+    /** Type code of a todo; type codes match the rows of the task list's type bitsets. */
+    static final byte TODO = 0;
+    /** Type code of a deadline. */
+    static final byte DEADLINE = 1;
+    /** Type code of an event. */
+    static final byte EVENT = 2;
+    /** Size of each off-heap description chunk; a longer description gets a chunk of its own. */
+    static final int CHUNK_SIZE = 1 << 20;
+
+    private byte[] types = new byte[16];
+    /** First epoch day of each task; todos have no days, so their range is empty. */
+    private long[] firstDays = new long[16];
+    private long[] lastDays = new long[16];
+    /**
+     * Start of each description: an index into the char arena, or for off-heap descriptions
+     * the chunk index in the high 32 bits and the offset within the chunk in the low 32 bits.
+     */
+    private long[] descriptionStarts = new long[16];
+    /** Length of each description, in chars or, for off-heap descriptions, in UTF-8 bytes. */
+    private int[] descriptionLengths = new int[16];
+    private char[] arena;
+    private int arenaSize;
+    private final boolean isOffHeap;
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    /** Chunk being filled, whose position is the end of its last description. */
+    private ByteBuffer chunk;
+    private int size;
+
+    /**
+     * Lowercased search keyword, in the forms both kinds of description arena compare against.
+     */
+    static final class Keyword {
+        private final char[] chars;
+        private final byte[] utf8;
+        /**
+         * Whether the keyword starts or ends with half a surrogate pair, which could match half of
+         * a pair in a description. The UTF-8 of a whole pair does not contain that of either half,
+         * so such keywords are matched against the decoded description instead.
+         */
+        private final boolean hasEdgeSurrogate;
+
+        /**
+         * Prepares a keyword for matching.
+         *
+         * @param lowerKeyword Lowercased keyword.
+         */
+        Keyword(String lowerKeyword) {
+            this.chars = lowerKeyword.toCharArray();
+            this.utf8 = encode(lowerKeyword);
+            this.hasEdgeSurrogate = !lowerKeyword.isEmpty()
+                    && (Character.isLowSurrogate(chars[0]) || Character.isHighSurrogate(chars[chars.length - 1]));
+        }
+    }
+
+    /**
+     * Creates empty columns with the descriptions in a char arena on the heap.
+     */
+    TaskColumns() {
+        this(false);
+    }
+
+    /**
+     * Creates empty columns.
+     *
+     * @param isOffHeap Whether to keep the descriptions as UTF-8 in direct byte buffers.
+     */
+    TaskColumns(boolean isOffHeap) {
+        this.isOffHeap = isOffHeap;
+        this.arena = isOffHeap ? new char[0] : new char[256];
+    }
+
+    /**
+     * Returns whether the descriptions are kept off the heap.
+     *
+     * @return True if they are kept as UTF-8 in direct byte buffers.
+     */
+    boolean isOffHeap() {
+        return isOffHeap;
+    }
+
+    /**
+     * Appends the columns of the task in the next slot.
+     *
+     * @param type             Type code.
+     * @param firstDay         First epoch day, or {@link Long#MAX_VALUE} for a task without dates.
+     * @param lastDay          Last epoch day, or {@link Long#MIN_VALUE} for a task without dates.
+     * @param lowerDescription Lowercased description.
+     */
+    void append(byte type, long firstDay, long lastDay, String lowerDescription) {
+        if (size == types.length) {
+            int capacity = size * 2;
+            types = Arrays.copyOf(types, capacity);
+            firstDays = Arrays.copyOf(firstDays, capacity);
+            lastDays = Arrays.copyOf(lastDays, capacity);
+            descriptionStarts = Arrays.copyOf(descriptionStarts, capacity);
+            descriptionLengths = Arrays.copyOf(descriptionLengths, capacity);
+        }
+        types[size] = type;
+        firstDays[size] = firstDay;
+        lastDays[size] = lastDay;
+        if (isOffHeap) {
+            byte[] bytes = encode(lowerDescription);
+            descriptionStarts[size] = appendToChunks(ByteBuffer.wrap(bytes));
+            descriptionLengths[size] = bytes.length;
+        } else {
+            descriptionStarts[size] = appendToArena(lowerDescription);
+            descriptionLengths[size] = lowerDescription.length();
+        }
+        size++;
+    }
+
+    /**
+     * Returns the type code of the task in a slot.
+     *
+     * @param slot Slot index.
+     * @return Type code.
+     */
+    byte type(int slot) {
+        return types[slot];
+    }
+
+    /**
+     * Checks whether the task in a slot falls on a day: a deadline due that day, or an event spanning it.
+     *
+     * @param slot Slot index.
+     * @param day  Epoch day.
+     * @return True if the task falls on the day.
+     */
+    boolean isOnDay(int slot, long day) {
+        return firstDays[slot] <= day && day <= lastDays[slot];
+    }
+
+    /**
+     * Checks whether the lowercased description of the task in a slot contains a lowercased keyword.
+     *
+     * @param slot    Slot index.
+     * @param keyword Lowercased keyword.
+     * @return True if the description contains the keyword.
+     */
+    boolean descriptionContains(int slot, Keyword keyword) {
+        if (!isOffHeap) {
+            return charsContain(slot, keyword.chars);
+        }
+        if (keyword.hasEdgeSurrogate) {
+            return decode(slot).contains(new String(keyword.chars));
+        }
+        return bytesContain(slot, keyword.utf8);
+    }
+
+    /**
+     * Returns the number of bytes of description text held off the heap.
+     *
+     * @return Bytes used in the off-heap chunks, or 0 if descriptions are kept on the heap.
+     */
+    long offHeapBytes() {
+        long bytes = 0;
+        for (ByteBuffer used : chunks) {
+            bytes += used.position();
+        }
+        return bytes;
+    }
+
+    private boolean charsContain(int slot, char[] keyword) {
+        int start = (int) descriptionStarts[slot];
+        int last = start + descriptionLengths[slot] - keyword.length;
+        if (keyword.length == 0) {
+            return true;
+        }
+        char first = keyword[0];
+        for (int i = start; i <= last; i++) {
+            if (arena[i] == first && regionMatches(i, keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean bytesContain(int slot, byte[] keyword) {
+        if (keyword.length == 0) {
+            return true;
+        }
+        long start = descriptionStarts[slot];
+        ByteBuffer bytes = chunks.get((int) (start >>> 32));
+        int from = (int) start;
+        int last = from + descriptionLengths[slot] - keyword.length;
+        byte first = keyword[0];
+        for (int i = from; i <= last; i++) {
+            if (bytes.get(i) == first && regionMatches(bytes, i, keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Keeps only the columns of the slots that still hold a task, moved down in order, and repacks
+     * the descriptions so the arena holds no text of deleted tasks.
+     *
+     * @param slots Tasks by slot, with null for deleted tasks.
+     * @param count Number of slots in use.
+     */
+    void compact(Task[] slots, int count) {
+        assert count == size : "Columns should cover every slot";
+        if (isOffHeap) {
+            compactOffHeap(slots, count);
+            return;
+        }
+        char[] packed = new char[Math.max(256, arenaSize)];
+        int packedSize = 0;
+        int live = 0;
+        for (int slot = 0; slot < count; slot++) {
+            if (slots[slot] == null) {
+                continue;
+            }
+            types[live] = types[slot];
+            firstDays[live] = firstDays[slot];
+            lastDays[live] = lastDays[slot];
+            System.arraycopy(arena, (int) descriptionStarts[slot], packed, packedSize, descriptionLengths[slot]);
+            descriptionStarts[live] = packedSize;
+            descriptionLengths[live] = descriptionLengths[slot];
+            packedSize += descriptionLengths[slot];
+            live++;
+        }
+        arena = packed;
+        arenaSize = packedSize;
+        size = live;
+    }
+
+    private void compactOffHeap(Task[] slots, int count) {
+        List<ByteBuffer> oldChunks = new ArrayList<>(chunks);
+        chunks.clear();
+        chunk = null;
+        int live = 0;
+        for (int slot = 0; slot < count; slot++) {
+            if (slots[slot] == null) {
+                continue;
+            }
+            types[live] = types[slot];
+            firstDays[live] = firstDays[slot];
+            lastDays[live] = lastDays[slot];
+            long start = descriptionStarts[slot];
+            int offset = (int) start;
+            ByteBuffer description = oldChunks.get((int) (start >>> 32)).duplicate();
+            description.limit(offset + descriptionLengths[slot]).position(offset);
+            descriptionStarts[live] = appendToChunks(description);
+            descriptionLengths[live] = descriptionLengths[slot];
+            live++;
+        }
+        // The old chunks' native memory is released once the buffers are garbage collected
+        size = live;
+    }
+
+    private boolean regionMatches(int start, char[] keyword) {
+        for (int j = 1; j < keyword.length; j++) {
+            if (arena[start + j] != keyword[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean regionMatches(ByteBuffer bytes, int start, byte[] keyword) {
+        for (int j = 1; j < keyword.length; j++) {
+            if (bytes.get(start + j) != keyword[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long appendToChunks(ByteBuffer bytes) {
+        if (chunk == null || chunk.remaining() < bytes.remaining()) {
+            chunk = ByteBuffer.allocateDirect(Math.max(CHUNK_SIZE, bytes.remaining()));
+            chunks.add(chunk);
+        }
+        long start = ((long) (chunks.size() - 1) << 32) | chunk.position();
+        chunk.put(bytes);
+        return start;
+    }
+
+    private String decode(int slot) {
+        long start = descriptionStarts[slot];
+        ByteBuffer bytes = chunks.get((int) (start >>> 32));
+        int end = (int) start + descriptionLengths[slot];
+        StringBuilder text = new StringBuilder(descriptionLengths[slot]);
+        for (int i = (int) start; i < end; ) {
+            int lead = bytes.get(i) & 0xFF;
+            if (lead < 0x80) {
+                text.append((char) lead);
+                i++;
+            } else if (lead < 0xE0) {
+                text.append((char) ((lead & 0x1F) << 6 | bytes.get(i + 1) & 0x3F));
+                i += 2;
+            } else if (lead < 0xF0) {
+                text.append((char) ((lead & 0x0F) << 12 | (bytes.get(i + 1) & 0x3F) << 6 | bytes.get(i + 2) & 0x3F));
+                i += 3;
+            } else {
+                text.appendCodePoint((lead & 0x07) << 18 | (bytes.get(i + 1) & 0x3F) << 12
+                        | (bytes.get(i + 2) & 0x3F) << 6 | bytes.get(i + 3) & 0x3F);
+                i += 4;
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Encodes text as UTF-8, writing each unpaired surrogate as a three-byte sequence of its own.
+     */
+    private static byte[] encode(String text) {
+        byte[] bytes = new byte[text.length() * 3];
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes[length++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[length++] = (byte) (0xC0 | c >> 6);
+                bytes[length++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                bytes[length++] = (byte) (0xF0 | codePoint >> 18);
+                bytes[length++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                bytes[length++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                bytes[length++] = (byte) (0x80 | codePoint & 0x3F);
+            } else {
+                bytes[length++] = (byte) (0xE0 | c >> 12);
+                bytes[length++] = (byte) (0x80 | c >> 6 & 0x3F);
+                bytes[length++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        return Arrays.copyOf(bytes, length);
+    }
+
+    private int appendToArena(String text) {
+        if (arenaSize + text.length() > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + text.length()));
+        }
+        int start = arenaSize;
+        text.getChars(0, text.length(), arena, start);
+        arenaSize += text.length();
+        return start;
+    }
+}
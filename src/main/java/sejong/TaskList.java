@@ -3,34 +3,159 @@ package sejong;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.StampedLock;
 
 import static sejong.Messages.ERROR_INVALID_TASK_NUMBER;
 import sejong.task.Deadline;
 import sejong.task.Event;
 import sejong.task.Task;
 import sejong.task.Todo;
+import sejong.util.FenwickTree;
+import sejong.util.IntIntMap;
+import sejong.util.IntervalTree;
+import sejong.util.InvertedIndex;
+import sejong.util.PersistentList;
+import sejong.util.TrigramIndex;
 
 /**
  * Contains the task list and operations to manipulate it.
+ * Tasks are kept in slots in insertion order. Deleting a task leaves an empty slot (tombstone)
+ * instead of shifting later tasks; a Fenwick tree over the occupied slots translates between
+ * positions in the list and slots in O(log n), and the slots are compacted once tombstones
+ * outnumber live tasks. Each task also has a stable id, found in O(1) through a primitive hash index.
+ * A second hash index counts tasks by their duplicate key, so duplicate checks do not scan the list,
+ * date queries go through a sorted map of deadlines and an interval tree of events, and keyword
+ * searches go through a trigram index of descriptions, or an inverted index of description words
+ * for keywords too short to have trigrams. Bitsets over the slots record each task's type and status,
+ * so type and status filters are word-wise bit operations and counts come from a small table.
+ * Completion status must therefore be changed through {@link #markTask} and {@link #unmarkTask}.
+ * Searches check their remaining predicates against primitive {@link TaskColumns} kept alongside the
+ * slots rather than against the Task objects. Find results are cached until the next change to the list.
+ * <p>
+ * A TaskList may be shared between threads. Mutations hold the write lock of a {@link StampedLock};
+ * {@link #size}, {@link #countTasks} and cached find results are read optimistically without locking,
+ * and other reads share the read lock. Each change also publishes the tasks in order as a new
+ * {@link PersistentList} that shares all but O(log n) nodes with the previous one, so {@link #getTasks}
+ * and {@link #getTask} read a consistent version without locking or copying the list.
+ * Use {@link #runInOrder} to make several calls, such as a lookup and the change it decides on, and the
+ * saving of that change appear as one change to other threads doing the same.
  */
 public class TaskList {
-    private final List<Task> tasks;
+    /** System property keeping the searched copies of descriptions off the heap ("true" or "false"). */
+    public static final String PROPERTY_OFF_HEAP_DESCRIPTIONS = "sejong.tasks.offHeapDescriptions";
+
+    /**
+     * A change to a task list and the work that must follow it in the same order, such as saving it.
+     *
+     * @param <T> Type of the result passed back to the caller.
+     */
+    @FunctionalInterface
+    public interface OrderedChange<T> {
+        /**
+         * Makes the change.
+         *
+         * @return Result of the change.
+         * @throws SejongException If the change fails.
+         */
+        T apply() throws SejongException;
+    }
+
+    /** Fewest tombstones worth compacting, so small lists are never compacted repeatedly. */
+    private static final int MIN_TOMBSTONES_TO_COMPACT = 64;
+
+    /** Tasks in insertion order; null marks a deleted task. */
+    private Task[] slots;
+    /** Id of the task in each slot, kept even after deletion until compaction. */
+    private int[] slotIds;
+    /** Number of slots in use, including tombstones. */
+    private int slotCount;
+    /** Number of live tasks. */
+    private int size;
+    /** Counts 1 for each live slot, so ranks and slots can be converted in O(log n). */
+    private final FenwickTree liveSlots = new FenwickTree();
+    private final IntIntMap slotById = new IntIntMap();
+    /** Highest id assigned so far; ids increase along the slots. */
+    private int lastId;
+    /** Number of live tasks under each duplicate key, so duplicate checks take O(1). */
+    private final Map<String, Integer> duplicateCounts = new HashMap<>();
+    /** Deadlines by due date as an epoch day, each day's deadlines in list order. */
+    private final TreeMap<Long, List<Task>> deadlinesByDay = new TreeMap<>();
+    /** Events by the range of epoch days they span. */
+    private final IntervalTree<Task> eventsByDays = new IntervalTree<>();
+    /** Task ids by the words of their lowercased descriptions. */
+    private final InvertedIndex keywordIndex = new InvertedIndex();
+    /** Task ids by the trigrams of their lowercased descriptions. */
+    private final TrigramIndex trigramIndex = new TrigramIndex();
+    /** Live slots holding each type of task, indexed by {@link #typeIndex}. */
+    private final BitSet[] typeSlots = {new BitSet(), new BitSet(), new BitSet()};
+    /** Live slots holding a task that is done. */
+    private final BitSet doneSlots = new BitSet();
+    /** Number of live tasks of each type (rows, by {@link #typeIndex}) that are pending (0) or done (1). */
+    private final int[][] statusCounts = new int[3][2];
+    /** Primitive columns of the fields searches check, by slot. */
+    private final TaskColumns columns;
+    /** Number of changes made through this list, which versions the cached find results. */
+    private long modCount;
+    private final QueryCache queryCache = new QueryCache(QueryCache.DEFAULT_CAPACITY);
+    /** Tasks in list order as of the last change, replaced rather than modified by each change. */
+    private volatile PersistentList<Task> published = new PersistentList<>();
+    /** Guards every field above. */
+    private final StampedLock lock = new StampedLock();
+    /** Held by {@link #runInOrder} for the whole change, so changes run through it never interleave. */
+    private final Object changeOrder = new Object();
 
     /**
      * Creates an empty TaskList.
      */
     public TaskList() {
-        this.tasks = new ArrayList<>();
+        this.slots = new Task[16];
+        this.slotIds = new int[16];
+        this.columns = new TaskColumns();
     }
 
     /**
      * Creates a TaskList with the given list of tasks.
+     * Tasks without an id, or whose id is not above that of the task before, get a new id.
      *
      * @param tasks List of tasks to initialize with.
      */
     public TaskList(List<Task> tasks) {
-        this.tasks = new ArrayList<>(tasks);
+        this(tasks, false);
+    }
+
+    /**
+     * Creates a TaskList with the given list of tasks, optionally keeping the copies of the descriptions
+     * that searches scan off the heap, so they add neither to the heap size nor to garbage collection work.
+     * Tasks without an id, or whose id is not above that of the task before, get a new id.
+     *
+     * @param tasks                  List of tasks to initialize with.
+     * @param hasOffHeapDescriptions Whether to keep the searched descriptions in direct memory as UTF-8.
+     */
+    public TaskList(List<Task> tasks, boolean hasOffHeapDescriptions) {
+        this(tasks, 0, hasOffHeapDescriptions);
+    }
+
+    /**
+     * Creates a TaskList with the given list of tasks that continues numbering after an id that was
+     * already given out, such as that of a deleted task, so that no id is ever given to two tasks.
+     * Tasks without an id, or whose id is not above that of the task before, get a new id.
+     *
+     * @param tasks                  List of tasks to initialize with.
+     * @param lastId                 Highest id given out before, or 0 to continue after the highest id in tasks.
+     * @param hasOffHeapDescriptions Whether to keep the searched descriptions in direct memory as UTF-8.
+     */
+    public TaskList(List<Task> tasks, int lastId, boolean hasOffHeapDescriptions) {
+        assert lastId >= 0 : "Last id should not be negative";
+        this.slots = new Task[Math.max(16, tasks.size())];
+        this.slotIds = new int[slots.length];
+        this.columns = new TaskColumns(hasOffHeapDescriptions);
+        load(tasks, lastId);
     }
 
     /**
@@ -39,16 +164,132 @@ public class TaskList {
      * @param tasks Tasks to initialize with.
      */
     public TaskList(Task... tasks) {
-        this.tasks = new ArrayList<>(Arrays.asList(tasks));
+        this(Arrays.asList(tasks));
     }
 
     /**
-     * Adds a task to the list.
+     * Fills this list, which must be empty, the way the constructor does, for subclasses that only index
+     * their tasks once they are first needed.
+     *
+     * @param tasks  Tasks to index, in order.
+     * @param lastId Highest id given out before, or 0 to continue after the highest id in tasks.
+     */
+    void load(List<Task> tasks, int lastId) {
+        long stamp = lock.writeLock();
+        try {
+            assert slotCount == 0 : "Tasks should only be loaded into an empty list";
+            if (slots.length < tasks.size()) {
+                slots = new Task[tasks.size()];
+                slotIds = new int[tasks.size()];
+            }
+            for (Task task : tasks) {
+                index(task);
+            }
+            this.lastId = Math.max(this.lastId, lastId);
+            published = new PersistentList<>(Arrays.asList(slots).subList(0, slotCount));
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Adds a task to the end of the list, giving it a new id unless it already has one
+     * higher than every id in the list.
      *
      * @param task Task to add.
      */
     public void addTask(Task task) {
-        tasks.add(task);
+        long stamp = lock.writeLock();
+        try {
+            append(task);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Adds a task to the end of the list unless an equivalent task is already in it, as one change.
+     *
+     * @param task Task to add.
+     * @return True if the task was added, false if it duplicates a task in the list.
+     */
+    public boolean addTaskIfAbsent(Task task) {
+        long stamp = lock.writeLock();
+        try {
+            if (containsDuplicate(task)) {
+                return false;
+            }
+            append(task);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Runs a change while no other change run through this method starts, so a lookup and the change
+     * it decides on act on the same tasks, and changes are saved in the order they were made.
+     * The lock on the list is only taken by each call the change makes, so readers are not held up
+     * while the change waits on the disk.
+     *
+     * @param change Change to run.
+     * @param <T>    Type of the result of the change.
+     * @return Result of the change.
+     * @throws SejongException If the change fails.
+     */
+    public <T> T runInOrder(OrderedChange<T> change) throws SejongException {
+        synchronized (changeOrder) {
+            return change.apply();
+        }
+    }
+
+    private void append(Task task) {
+        index(task);
+        PersistentList<Task> next = published.snapshot();
+        next.add(task);
+        published = next;
+    }
+
+    /**
+     * Stores a task in the next slot and adds it to every index, without publishing it.
+     */
+    private void index(Task task) {
+        assert task != null : "Task should not be null";
+        if (task.getId() <= lastId) {
+            task.setId(lastId + 1);
+        }
+        lastId = task.getId();
+        if (slotCount == slots.length) {
+            slots = Arrays.copyOf(slots, slotCount * 2);
+            slotIds = Arrays.copyOf(slotIds, slotCount * 2);
+        }
+        String lowerDescription = task.getDescription().toLowerCase();
+        slots[slotCount] = task;
+        slotIds[slotCount] = lastId;
+        appendColumns(task, lowerDescription);
+        slotById.put(lastId, slotCount);
+        liveSlots.append(1);
+        slotCount++;
+        size++;
+        indexDuplicate(task, 1);
+        indexDates(task, true);
+        indexTypeAndStatus(task, slotCount - 1, true);
+        modCount++;
+        keywordIndex.add(lastId, lowerDescription);
+        trigramIndex.add(lastId, lowerDescription);
+    }
+
+    private void appendColumns(Task task, String lowerDescription) {
+        long firstDay = Long.MAX_VALUE;
+        long lastDay = Long.MIN_VALUE;
+        if (task instanceof Deadline) {
+            firstDay = ((Deadline) task).getBy().toEpochDay();
+            lastDay = firstDay;
+        } else if (task instanceof Event) {
+            firstDay = ((Event) task).getFrom().toEpochDay();
+            lastDay = ((Event) task).getTo().toEpochDay();
+        }
+        columns.append((byte) typeIndex(task), firstDay, lastDay, lowerDescription);
     }
 
     /**
@@ -60,38 +301,136 @@ public class TaskList {
      * @return True if a duplicate exists, false otherwise.
      */
     public boolean hasDuplicate(Task task) {
-        for (Task existing : tasks) {
-            if (isDuplicate(task, existing)) {
-                return true;
-            }
+        long stamp = lock.readLock();
+        try {
+            return containsDuplicate(task);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Counts the tasks in the list that the given task would duplicate, in O(1).
+     *
+     * @param task Task to check.
+     * @return Number of equivalent tasks in the list.
+     */
+    int countDuplicates(Task task) {
+        String key = duplicateKey(task);
+        if (key == null) {
+            return 0;
         }
-        return false;
+        long stamp = lock.readLock();
+        try {
+            return duplicateCounts.getOrDefault(key, 0);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private boolean containsDuplicate(Task task) {
+        String key = duplicateKey(task);
+        return key != null && duplicateCounts.containsKey(key);
     }
 
     /**
-     * Compares two tasks for logical equivalence (duplicate check).
+     * Builds the key under which a task is counted in the duplicate index. Two tasks have the same key
+     * exactly when they are duplicates: same class, same dates, and trimmed descriptions that are equal
+     * ignoring case. Each code point is folded the way {@link String#equalsIgnoreCase} compares it
+     * (upper case, then lower case), and the trimmed length is included because that method also
+     * requires equal lengths.
+     *
+     * @return Key, or null if the task has no description and so duplicates nothing.
      */
-    private boolean isDuplicate(Task newTask, Task existing) {
-        if (newTask.getClass() != existing.getClass()) {
-            return false;
+    static String duplicateKey(Task task) {
+        String description = task.getDescription();
+        if (description == null) {
+            return null;
         }
-        if (!descriptionsMatch(newTask.getDescription(), existing.getDescription())) {
-            return false;
+        String trimmed = description.trim();
+        StringBuilder key = new StringBuilder(trimmed.length() + 40);
+        key.append(task.getClass().getName()).append('\0');
+        if (task instanceof Deadline) {
+            key.append(((Deadline) task).getBy());
+        } else if (task instanceof Event) {
+            key.append(((Event) task).getFrom()).append('/').append(((Event) task).getTo());
         }
-        if (newTask instanceof Deadline) {
-            return ((Deadline) newTask).getBy().equals(((Deadline) existing).getBy());
+        key.append('\0').append(trimmed.length()).append('\0');
+        trimmed.codePoints().forEach(cp -> key.appendCodePoint(Character.toLowerCase(Character.toUpperCase(cp))));
+        return key.toString();
+    }
+
+    private void indexDuplicate(Task task, int delta) {
+        String key = duplicateKey(task);
+        if (key != null) {
+            duplicateCounts.merge(key, delta, (count, change) -> count + change == 0 ? null : count + change);
         }
-        if (newTask instanceof Event) {
-            Event ne = (Event) newTask;
-            Event oe = (Event) existing;
-            return ne.getFrom().equals(oe.getFrom()) && ne.getTo().equals(oe.getTo());
+    }
+
+    /**
+     * Adds a deadline or event to the date indexes, or removes it. Todos have no dates and are not indexed.
+     */
+    private void indexDates(Task task, boolean isAdded) {
+        if (task instanceof Deadline) {
+            long day = ((Deadline) task).getBy().toEpochDay();
+            if (isAdded) {
+                // Tasks are added in id order, so each day's list stays in list order
+                deadlinesByDay.computeIfAbsent(day, key -> new ArrayList<>(1)).add(task);
+                return;
+            }
+            List<Task> deadlines = deadlinesByDay.get(day);
+            deadlines.removeIf(deadline -> deadline == task);
+            if (deadlines.isEmpty()) {
+                deadlinesByDay.remove(day);
+            }
+        } else if (task instanceof Event) {
+            Event event = (Event) task;
+            long from = event.getFrom().toEpochDay();
+            if (isAdded) {
+                eventsByDays.insert(from, event.getTo().toEpochDay(), task.getId(), task);
+            } else {
+                eventsByDays.remove(from, task.getId());
+            }
         }
-        return true; // Todo: same type and description
     }
 
-    private static boolean descriptionsMatch(String a, String b) {
-        return a != null && b != null
-                && a.trim().equalsIgnoreCase(b.trim());
+    /**
+     * Puts a copy of a deadline or event in the original's place in the date indexes.
+     */
+    private void replaceInDateIndexes(Task task, Task updated) {
+        if (task instanceof Deadline) {
+            deadlinesByDay.get(((Deadline) task).getBy().toEpochDay())
+                    .replaceAll(deadline -> deadline == task ? updated : deadline);
+        } else if (task instanceof Event) {
+            // Intervals are keyed by start and id, which the copy shares, so it takes the same place
+            indexDates(task, false);
+            indexDates(updated, true);
+        }
+    }
+
+    /**
+     * Adds a task in a slot to the type and status bitsets and counts, or removes it.
+     */
+    private void indexTypeAndStatus(Task task, int slot, boolean isAdded) {
+        int type = typeIndex(task);
+        typeSlots[type].set(slot, isAdded);
+        doneSlots.set(slot, isAdded && task.isDone());
+        statusCounts[type][task.isDone() ? 1 : 0] += isAdded ? 1 : -1;
+    }
+
+    /**
+     * Returns the row of a task's type in the type bitsets and counts. Rows follow the order of
+     * {@link SearchCriteria.TaskType}, so a type filter's ordinal selects its row.
+     */
+    private static int typeIndex(Task task) {
+        if (task instanceof Deadline) {
+            return TaskColumns.DEADLINE;
+        }
+        if (task instanceof Event) {
+            return TaskColumns.EVENT;
+        }
+        assert task instanceof Todo : "Tasks should be todos, deadlines or events";
+        return TaskColumns.TODO;
     }
 
     /**
@@ -102,14 +441,97 @@ public class TaskList {
      * @throws SejongException If index is invalid.
      */
     public Task deleteTask(int index) throws SejongException {
-        if (index < 0 || index >= tasks.size()) {
+        long stamp = lock.writeLock();
+        try {
+            return removeAt(index);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private Task removeAt(int index) throws SejongException {
+        if (index < 0 || index >= size) {
             throw new SejongException(ERROR_INVALID_TASK_NUMBER);
         }
-        Task deletedTask = tasks.remove(index);
+        int slot = slotOf(index);
+        Task deletedTask = slots[slot];
         assert deletedTask != null : "Deleted task should not be null";
+        slots[slot] = null;
+        slotById.remove(slotIds[slot]);
+        liveSlots.add(slot, -1);
+        size--;
+        indexDuplicate(deletedTask, -1);
+        indexDates(deletedTask, false);
+        indexTypeAndStatus(deletedTask, slot, false);
+        modCount++;
+        String lowerDescription = deletedTask.getDescription().toLowerCase();
+        keywordIndex.remove(slotIds[slot], lowerDescription);
+        trigramIndex.remove(slotIds[slot], lowerDescription);
+        PersistentList<Task> next = published.snapshot();
+        next.remove(index);
+        published = next;
+        int tombstones = slotCount - size;
+        if (tombstones >= MIN_TOMBSTONES_TO_COMPACT && tombstones > size) {
+            compact();
+        }
         return deletedTask;
     }
 
+    /**
+     * Returns the position of the task with the given id.
+     *
+     * @param id Stable task id.
+     * @return Zero-based index of the task, or -1 if no task in the list has the id.
+     */
+    public int indexOfId(int id) {
+        if (id <= 0) {
+            return -1;
+        }
+        long stamp = lock.readLock();
+        try {
+            int slot = slotById.get(id, -1);
+            return slot < 0 ? -1 : liveSlots.prefixSum(slot);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the slot holding the task at the given position.
+     */
+    private int slotOf(int index) {
+        return liveSlots.select(index + 1);
+    }
+
+    /**
+     * Moves the live tasks to the front of the slots, dropping tombstones, and rebuilds the indexes.
+     */
+    private void compact() {
+        columns.compact(slots, slotCount);
+        int live = 0;
+        slotById.clear();
+        liveSlots.clear();
+        for (BitSet slotsOfType : typeSlots) {
+            slotsOfType.clear();
+        }
+        doneSlots.clear();
+        for (int slot = 0; slot < slotCount; slot++) {
+            Task task = slots[slot];
+            if (task != null) {
+                slots[live] = task;
+                slotIds[live] = slotIds[slot];
+                slotById.put(slotIds[live], live);
+                liveSlots.append(1);
+                typeSlots[typeIndex(task)].set(live);
+                doneSlots.set(live, task.isDone());
+                live++;
+            }
+        }
+        Arrays.fill(slots, live, slotCount, null);
+        slotCount = live;
+        assert slotCount == size : "Compaction should leave only live tasks";
+    }
+
     /**
      * Gets a task from the list.
      *
@@ -118,10 +540,18 @@ public class TaskList {
      * @throws SejongException If index is invalid.
      */
     public Task getTask(int index) throws SejongException {
+        PersistentList<Task> tasks = published;
         if (index < 0 || index >= tasks.size()) {
             throw new SejongException(ERROR_INVALID_TASK_NUMBER);
         }
-        Task task = tasks.get(index);
+        return tasks.get(index);
+    }
+
+    private Task taskAt(int index) throws SejongException {
+        if (index < 0 || index >= size) {
+            throw new SejongException(ERROR_INVALID_TASK_NUMBER);
+        }
+        Task task = slots[slotOf(index)];
         assert task != null : "Retrieved task should not be null";
         return task;
     }
@@ -134,9 +564,12 @@ public class TaskList {
      * @throws SejongException If index is invalid.
      */
     public Task markTask(int index) throws SejongException {
-        Task task = getTask(index);
-        task.markDone();
-        return task;
+        long stamp = lock.writeLock();
+        try {
+            return setDone(index, true);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
     /**
@@ -147,9 +580,72 @@ public class TaskList {
      * @throws SejongException If index is invalid.
      */
     public Task unmarkTask(int index) throws SejongException {
-        Task task = getTask(index);
-        task.markNotDone();
-        return task;
+        long stamp = lock.writeLock();
+        try {
+            return setDone(index, false);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Sets the status of a task by replacing it with a copy, so tasks already handed out, and the
+     * snapshots holding them, keep the status they had.
+     */
+    private Task setDone(int index, boolean isDone) throws SejongException {
+        Task task = taskAt(index);
+        if (task.isDone() == isDone) {
+            return task;
+        }
+        int slot = slotOf(index);
+        Task updated = task.withDone(isDone);
+        int type = typeIndex(task);
+        statusCounts[type][isDone ? 0 : 1]--;
+        statusCounts[type][isDone ? 1 : 0]++;
+        doneSlots.set(slot, isDone);
+        slots[slot] = updated;
+        replaceInDateIndexes(task, updated);
+        modCount++;
+        PersistentList<Task> next = published.snapshot();
+        next.set(index, updated);
+        published = next;
+        return updated;
+    }
+
+    /**
+     * Counts the tasks of a type with a completion status in O(1).
+     *
+     * @param type   Type to count, or ALL.
+     * @param status Completion status to count, or ALL.
+     * @return Number of matching tasks.
+     */
+    public int countTasks(SearchCriteria.TaskType type, SearchCriteria.CompletionStatus status) {
+        long stamp = lock.tryOptimisticRead();
+        int count = sumCounts(type, status);
+        if (lock.validate(stamp)) {
+            return count;
+        }
+        stamp = lock.readLock();
+        try {
+            return sumCounts(type, status);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private int sumCounts(SearchCriteria.TaskType type, SearchCriteria.CompletionStatus status) {
+        int count = 0;
+        for (int row = 0; row < statusCounts.length; row++) {
+            if (type == SearchCriteria.TaskType.ALL || row == type.ordinal()) {
+                if (status != SearchCriteria.CompletionStatus.DONE) {
+                    count += statusCounts[row][0];
+                }
+                if (status != SearchCriteria.CompletionStatus.PENDING) {
+                    count += statusCounts[row][1];
+                }
+            }
+        }
+        return count;
     }
 
     /**
@@ -159,20 +655,40 @@ public class TaskList {
      * @return List of tasks on that date.
      */
     public List<Task> findTasksOnDate(LocalDate date) {
+        return findTasksBetween(date, date);
+    }
+
+    /**
+     * Finds all deadlines due within a date range and all events that overlap it, in list order.
+     * Both are looked up in the date indexes, taking logarithmic time plus the size of the result
+     * (and sorting the result back into list order).
+     *
+     * @param from First date of the range.
+     * @param to   Last date of the range.
+     * @return List of tasks on at least one date in the range.
+     */
+    public List<Task> findTasksBetween(LocalDate from, LocalDate to) {
+        long stamp = lock.readLock();
+        try {
+            return collectBetween(from, to);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private List<Task> collectBetween(LocalDate from, LocalDate to) {
+        long first = from.toEpochDay();
+        long last = to.toEpochDay();
         List<Task> matchingTasks = new ArrayList<>();
-        for (Task task : tasks) {
-            if (task instanceof Deadline) {
-                Deadline deadline = (Deadline) task;
-                if (deadline.getBy().equals(date)) {
-                    matchingTasks.add(task);
-                }
-            } else if (task instanceof Event) {
-                Event event = (Event) task;
-                if (!date.isBefore(event.getFrom()) && !date.isAfter(event.getTo())) {
-                    matchingTasks.add(task);
-                }
-            }
+        if (first > last) {
+            return matchingTasks;
         }
+        for (List<Task> deadlines : deadlinesByDay.subMap(first, true, last, true).values()) {
+            matchingTasks.addAll(deadlines);
+        }
+        eventsByDays.collectOverlapping(first, last, matchingTasks);
+        // Ids increase along the list, so sorting by id restores list order
+        matchingTasks.sort(Comparator.comparingInt(Task::getId));
         return matchingTasks;
     }
 
@@ -183,14 +699,7 @@ public class TaskList {
      * @return List of tasks containing the keyword.
      */
     public List<Task> findTasksByKeyword(String keyword) {
-        List<Task> matchingTasks = new ArrayList<>();
-        String lowerKeyword = keyword.toLowerCase();
-        for (Task task : tasks) {
-            if (task.getDescription().toLowerCase().contains(lowerKeyword)) {
-                matchingTasks.add(task);
-            }
-        }
-        return matchingTasks;
+        return findTasks(new SearchCriteria(List.of(keyword)));
     }
 
     /**
@@ -203,117 +712,240 @@ public class TaskList {
      * @return List of tasks matching all specified criteria.
      */
     public List<Task> findTasks(SearchCriteria criteria) {
+        SearchCriteria key = criteria.normalized();
+        long stamp = lock.tryOptimisticRead();
+        long version = modCount;
+        boolean isLookedUp = stamp != 0 && lock.validate(stamp);
+        if (isLookedUp) {
+            List<Task> cached = queryCache.get(key, version);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            // Look up again only if the list changed after the optimistic lookup missed
+            if (!isLookedUp || modCount != version) {
+                List<Task> cached = queryCache.get(key, modCount);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+            List<Task> matchingTasks = runQuery(criteria);
+            queryCache.put(key, matchingTasks, modCount);
+            return matchingTasks;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the cache of find results, for its hit and miss counts.
+     *
+     * @return Query cache.
+     */
+    public QueryCache getQueryCache() {
+        return queryCache;
+    }
+
+    private List<Task> runQuery(SearchCriteria criteria) {
+        QueryPlan plan = plan(criteria);
         List<Task> matchingTasks = new ArrayList<>();
-        
-        for (Task task : tasks) {
-            if (matchesCriteria(task, criteria)) {
-                matchingTasks.add(task);
+        switch (plan.getAccess()) {
+        case DATE_INDEX:
+            for (Task task : collectBetween(criteria.getDate(), criteria.getDate())) {
+                addIfMatches(slotById.get(task.getId(), -1), plan, matchingTasks);
+            }
+            break;
+        case KEYWORD_INDEX:
+            for (int id : findKeywordCandidates(plan.getAccessKeyword())) {
+                addIfMatches(slotById.get(id, -1), plan, matchingTasks);
+            }
+            break;
+        case TYPE_STATUS_BITMAP:
+            BitSet matchingSlots = filterSlots(criteria);
+            for (int slot = matchingSlots.nextSetBit(0); slot >= 0; slot = matchingSlots.nextSetBit(slot + 1)) {
+                addIfMatches(slot, plan, matchingTasks);
             }
+            break;
+        default:
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (slots[slot] != null) {
+                    addIfMatches(slot, plan, matchingTasks);
+                }
+            }
+            break;
         }
-        
         return matchingTasks;
     }
 
+    private void addIfMatches(int slot, QueryPlan plan, List<Task> matchingTasks) {
+        if (plan.matches(slot)) {
+            matchingTasks.add(slots[slot]);
+        }
+    }
+
     /**
-     * Checks if a task matches the given search criteria.
+     * Chooses how to run a search. The number of tasks each predicate lets through is estimated from
+     * the indexes: deadlines on the date plus all events for a date filter, the shortest trigram posting
+     * list or the total size of the matching word posting lists for a keyword, and exact counts for type
+     * and status filters. The index behind the smallest
+     * estimate produces the candidates, unless a full scan is no worse. Predicates the chosen index does
+     * not answer exactly are checked on each candidate, the most selective first, so most candidates
+     * are rejected by the first check.
      *
-     * @param task     Task to check.
-     * @param criteria Search criteria to match against.
-     * @return True if task matches all criteria, false otherwise.
+     * @param criteria Search criteria to plan for.
+     * @return Plan for the search.
      */
-    private boolean matchesCriteria(Task task, SearchCriteria criteria) {
-        // Check keywords (all must match)
-        if (criteria.hasKeywords()) {
-            String description = task.getDescription().toLowerCase();
-            for (String keyword : criteria.getKeywords()) {
-                if (!description.contains(keyword.toLowerCase())) {
-                    return false;
+    public QueryPlan planQuery(SearchCriteria criteria) {
+        long stamp = lock.readLock();
+        try {
+            return plan(criteria);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private QueryPlan plan(SearchCriteria criteria) {
+        int dateEstimate = criteria.hasDateFilter() ? estimateOnDate(criteria.getDate()) : size;
+        List<String> keywords = criteria.getKeywords();
+        int[] keywordEstimates = new int[keywords.size()];
+        int keywordEstimate = size;
+        String accessKeyword = null;
+        // Trigram estimates are cheap, so they go first and bound the vocabulary scans of short keywords
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < keywords.size(); i++) {
+                String lowerKeyword = keywords.get(i).toLowerCase();
+                if (TrigramIndex.canFind(lowerKeyword) != (pass == 0)) {
+                    continue;
+                }
+                keywordEstimates[i] = estimateKeyword(lowerKeyword, keywordEstimate);
+                if (keywordEstimates[i] < keywordEstimate) {
+                    keywordEstimate = keywordEstimates[i];
+                    accessKeyword = lowerKeyword;
                 }
             }
         }
-        
-        // Check date filter
-        if (criteria.hasDateFilter()) {
-            if (!matchesDate(task, criteria.getDate())) {
-                return false;
-            }
+        boolean hasBitmapFilter = criteria.hasTypeFilter() || criteria.hasStatusFilter();
+        int bitmapEstimate = sumCounts(criteria.getTaskType(), criteria.getStatus());
+
+        QueryPlan.Access access = QueryPlan.Access.FULL_SCAN;
+        String accessDescription = "Scan every task";
+        int estimate = size;
+        if (criteria.hasDateFilter() && dateEstimate < estimate) {
+            access = QueryPlan.Access.DATE_INDEX;
+            accessDescription = "Look up date " + criteria.getDate() + " in the date index";
+            estimate = dateEstimate;
         }
-        
-        // Check task type filter
-        if (criteria.hasTypeFilter()) {
-            if (!matchesType(task, criteria.getTaskType())) {
-                return false;
-            }
+        if (accessKeyword != null && keywordEstimate < estimate) {
+            access = QueryPlan.Access.KEYWORD_INDEX;
+            accessDescription = "Look up \"" + accessKeyword + "\" in the "
+                    + (TrigramIndex.canFind(accessKeyword) ? "trigram index" : "word index");
+            estimate = keywordEstimate;
         }
-        
-        // Check completion status filter
-        if (criteria.hasStatusFilter()) {
-            if (!matchesStatus(task, criteria.getStatus())) {
-                return false;
+        if (hasBitmapFilter && bitmapEstimate < estimate) {
+            access = QueryPlan.Access.TYPE_STATUS_BITMAP;
+            accessDescription = "Combine the type and status bitmaps";
+            estimate = bitmapEstimate;
+        }
+
+        List<QueryPlan.Check> checks = new ArrayList<>();
+        for (int i = 0; i < keywords.size(); i++) {
+            TaskColumns.Keyword pattern = new TaskColumns.Keyword(keywords.get(i).toLowerCase());
+            checks.add(new QueryPlan.Check("keyword \"" + keywords.get(i) + "\"", keywordEstimates[i],
+                slot -> columns.descriptionContains(slot, pattern)));
+        }
+        if (criteria.hasDateFilter() && access != QueryPlan.Access.DATE_INDEX) {
+            LocalDate date = criteria.getDate();
+            long day = date.toEpochDay();
+            checks.add(new QueryPlan.Check("date is " + date, dateEstimate, slot -> columns.isOnDay(slot, day)));
+        }
+        if (access != QueryPlan.Access.TYPE_STATUS_BITMAP) {
+            if (criteria.hasTypeFilter()) {
+                SearchCriteria.TaskType type = criteria.getTaskType();
+                // Type codes follow the order of TaskType, as the type bitsets do
+                byte typeCode = (byte) type.ordinal();
+                checks.add(new QueryPlan.Check("type is " + type.toString().toLowerCase(),
+                        sumCounts(type, SearchCriteria.CompletionStatus.ALL), slot -> columns.type(slot) == typeCode));
+            }
+            if (criteria.hasStatusFilter()) {
+                SearchCriteria.CompletionStatus status = criteria.getStatus();
+                boolean isDone = status == SearchCriteria.CompletionStatus.DONE;
+                checks.add(new QueryPlan.Check("status is " + status.toString().toLowerCase(),
+                        sumCounts(SearchCriteria.TaskType.ALL, status), slot -> doneSlots.get(slot) == isDone));
             }
         }
-        
-        return true;
+        checks.sort(Comparator.comparingInt(QueryPlan.Check::getEstimatedRows));
+        if (access != QueryPlan.Access.KEYWORD_INDEX) {
+            accessKeyword = null;
+        }
+        return new QueryPlan(access, accessKeyword, accessDescription, estimate, size, checks);
     }
 
     /**
-     * Checks if a task matches the specified date.
+     * Estimates how many tasks contain a keyword, from the trigram index for keywords of three or more
+     * characters and from the word index for shorter words. Looking a short word up scans the whole
+     * vocabulary, so it is only worth it, and only estimated, when the scan plus the candidates would
+     * still come in under the best estimate so far; otherwise, as for keywords neither index can look
+     * up, the estimate is the list size.
      *
-     * @param task Task to check.
-     * @param date Date to match.
-     * @return True if task is on the specified date, false otherwise.
+     * @param bestEstimate Smallest estimate of any access path found so far.
      */
-    private boolean matchesDate(Task task, LocalDate date) {
-        if (task instanceof Deadline) {
-            Deadline deadline = (Deadline) task;
-            return deadline.getBy().equals(date);
-        } else if (task instanceof Event) {
-            Event event = (Event) task;
-            return !date.isBefore(event.getFrom()) && !date.isAfter(event.getTo());
+    private int estimateKeyword(String lowerKeyword, int bestEstimate) {
+        if (TrigramIndex.canFind(lowerKeyword)) {
+            return trigramIndex.estimateCandidates(lowerKeyword);
+        }
+        int scanBudget = bestEstimate - keywordIndex.vocabularySize();
+        if (!InvertedIndex.canFind(lowerKeyword) || scanBudget <= 0) {
+            return size;
         }
-        return false; // Todo tasks have no date
+        int estimate = keywordIndex.estimateCandidates(lowerKeyword, scanBudget);
+        return estimate < scanBudget ? estimate : size;
     }
 
     /**
-     * Checks if a task matches the specified type.
-     *
-     * @param task Task to check.
-     * @param type Type to match.
-     * @return True if task is of the specified type, false otherwise.
-     */
-    private boolean matchesType(Task task, SearchCriteria.TaskType type) {
-        switch (type) {
-        case TODO:
-            return task instanceof Todo;
-        case DEADLINE:
-            return task instanceof Deadline;
-        case EVENT:
-            return task instanceof Event;
-        case ALL:
-            return true;
-        default:
-            return false;
+     * Estimates how many tasks fall on a date: the deadlines due that day exactly, and every event
+     * as an upper bound, since counting the overlapping events would cost as much as finding them.
+     */
+    private int estimateOnDate(LocalDate date) {
+        List<Task> deadlines = deadlinesByDay.get(date.toEpochDay());
+        return (deadlines == null ? 0 : deadlines.size()) + eventsByDays.size();
+    }
+
+    /**
+     * Returns the slots of the tasks passing the type and status filters, combining the bitsets a
+     * word at a time.
+     */
+    private BitSet filterSlots(SearchCriteria criteria) {
+        BitSet matchingSlots;
+        if (criteria.hasTypeFilter()) {
+            matchingSlots = (BitSet) typeSlots[criteria.getTaskType().ordinal()].clone();
+        } else {
+            matchingSlots = new BitSet(slotCount);
+            for (BitSet slotsOfType : typeSlots) {
+                matchingSlots.or(slotsOfType);
+            }
         }
+        if (criteria.getStatus() == SearchCriteria.CompletionStatus.DONE) {
+            matchingSlots.and(doneSlots);
+        } else if (criteria.getStatus() == SearchCriteria.CompletionStatus.PENDING) {
+            matchingSlots.andNot(doneSlots);
+        }
+        return matchingSlots;
     }
 
     /**
-     * Checks if a task matches the specified completion status.
+     * Looks up the candidates for the keyword a plan chose: through the trigram index for keywords of
+     * three or more characters, and through the word index for shorter ones made only of letters and
+     * digits. The exact keyword checks, including those for the other keywords, are left to the plan's
+     * checks on the candidates.
      *
-     * @param task   Task to check.
-     * @param status Status to match.
-     * @return True if task has the specified status, false otherwise.
+     * @return Sorted ids of the candidate tasks.
      */
-    private boolean matchesStatus(Task task, SearchCriteria.CompletionStatus status) {
-        switch (status) {
-        case DONE:
-            return task.isDone();
-        case PENDING:
-            return !task.isDone();
-        case ALL:
-            return true;
-        default:
-            return false;
-        }
+    private int[] findKeywordCandidates(String lowerKeyword) {
+        return TrigramIndex.canFind(lowerKeyword)
+                ? trigramIndex.findCandidates(lowerKeyword)
+                : keywordIndex.find(lowerKeyword);
     }
 
     /**
@@ -322,15 +954,73 @@ public class TaskList {
      * @return Number of tasks.
      */
     public int size() {
-        return tasks.size();
+        long stamp = lock.tryOptimisticRead();
+        int currentSize = size;
+        if (lock.validate(stamp)) {
+            return currentSize;
+        }
+        stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the highest id this list has given out or loaded, including ids of tasks deleted since.
+     * The next task added gets a higher one.
+     *
+     * @return Last id, or 0 if the list never held a task.
+     */
+    public int getLastId() {
+        long stamp = lock.readLock();
+        try {
+            return lastId;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns a number that changes whenever the tasks in the list change.
+     *
+     * @return Modification count.
+     */
+    long getVersion() {
+        long stamp = lock.readLock();
+        try {
+            return modCount;
+        } finally {
+            lock.unlockRead(stamp);
+        }
     }
 
     /**
-     * Returns the list of all tasks.
+     * Returns a snapshot of all tasks in O(1). The snapshot does not change when the list does,
+     * and changing the snapshot does not change the list.
      *
      * @return List of tasks.
      */
     public List<Task> getTasks() {
-        return new ArrayList<>(tasks);
+        return getSnapshot();
+    }
+
+    /**
+     * Returns a snapshot of all tasks in O(1) that can be changed without changing the list.
+     *
+     * @return Snapshot of the tasks.
+     */
+    PersistentList<Task> getSnapshot() {
+        return published.snapshot();
+    }
+
+    /**
+     * Returns whether the searched copies of the descriptions are kept off the heap.
+     *
+     * @return True if they are kept in direct memory.
+     */
+    boolean hasOffHeapDescriptions() {
+        return columns.isOffHeap();
     }
 }
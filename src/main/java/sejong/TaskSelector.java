@@ -0,0 +1,70 @@
+package sejong;
+
+import static sejong.Messages.ERROR_INVALID_TASK_NUMBER;
+
+/**
+ * Identifies the task a command acts on, either by its current position in the list or by its
+ * stable id. Positions shift when earlier tasks are deleted; ids never change.
+ */
+public class TaskSelector {
+    private final boolean isById;
+    private final int value;
+
+    private TaskSelector(boolean isById, int value) {
+        this.isById = isById;
+        this.value = value;
+    }
+
+    /**
+     * Selects the task at a position in the list.
+     *
+     * @param index Zero-based task index.
+     * @return Selector for the position.
+     */
+    public static TaskSelector byIndex(int index) {
+        return new TaskSelector(false, index);
+    }
+
+    /**
+     * Selects the task with a stable id.
+     *
+     * @param id Task id.
+     * @return Selector for the id.
+     */
+    public static TaskSelector byId(int id) {
+        return new TaskSelector(true, id);
+    }
+
+    /**
+     * Checks whether the task is selected by id rather than by position.
+     *
+     * @return True if selected by id.
+     */
+    public boolean isById() {
+        return isById;
+    }
+
+    /**
+     * Returns the selected id or zero-based index.
+     *
+     * @return Id if {@link #isById()}, otherwise the index.
+     */
+    public int getValue() {
+        return value;
+    }
+
+    /**
+     * Finds the current position of the selected task.
+     *
+     * @param tasks Task list to search.
+     * @return Zero-based index of the task.
+     * @throws SejongException If no task in the list matches the selector.
+     */
+    public int resolve(TaskList tasks) throws SejongException {
+        int index = isById ? tasks.indexOfId(value) : value;
+        if (index < 0 || index >= tasks.size()) {
+            throw new SejongException(ERROR_INVALID_TASK_NUMBER);
+        }
+        return index;
+    }
+}
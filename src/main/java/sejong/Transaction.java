@@ -0,0 +1,162 @@
+package sejong;
+
+import sejong.storage.Mutation;
+import sejong.storage.TaskLineFormat;
+import sejong.task.Task;
+import sejong.util.PersistentList;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static sejong.Messages.ERROR_TRANSACTION_CONFLICT;
+
+/**
+ * Changes staged on top of a snapshot of a task list, applied to the shared list and persisted together
+ * on commit, or thrown away on rollback.
+ * Commits are optimistic and rebase the staged changes onto the shared list as it is by then: each change
+ * is applied to the task with the same id, wherever that task has moved. Tasks added in the transaction
+ * keep the ids they were shown with unless another session gave those ids out first, in which case they
+ * get the next free ones. Only if a task the transaction changed was deleted elsewhere does the commit fail,
+ * applying nothing.
+ */
+class Transaction {
+    private final StagedTaskList stagedTasks;
+    private final Storage stagedStorage;
+
+    private Transaction(StagedTaskList stagedTasks, Storage stagedStorage) {
+        this.stagedTasks = stagedTasks;
+        this.stagedStorage = stagedStorage;
+    }
+
+    /**
+     * Begins a transaction on a snapshot of the shared tasks, in O(1).
+     *
+     * @param tasks   Shared task list.
+     * @param storage Storage of the shared task list.
+     * @return Open transaction.
+     */
+    static Transaction begin(TaskList tasks, Storage storage) {
+        long version;
+        PersistentList<Task> snapshot;
+        int lastId;
+        // The snapshot shows the version read before it only if no change came in between
+        do {
+            version = tasks.getVersion();
+            snapshot = tasks.getSnapshot();
+            lastId = tasks.getLastId();
+        } while (tasks.getVersion() != version);
+        return new Transaction(new StagedTaskList(tasks, snapshot, lastId), storage.stage());
+    }
+
+    /**
+     * Returns the staged list that the commands in the transaction change.
+     *
+     * @return Staged task list.
+     */
+    TaskList getTasks() {
+        return stagedTasks;
+    }
+
+    /**
+     * Returns the storage that records the changes made in the transaction without writing them.
+     *
+     * @return Staging storage.
+     */
+    Storage getStorage() {
+        return stagedStorage;
+    }
+
+    /**
+     * Applies the staged changes to the shared list and persists them with a single write.
+     *
+     * @param tasks   Shared task list.
+     * @param storage Storage of the shared task list.
+     * @return Number of changes applied.
+     * @throws SejongException If a task changed in the transaction was deleted elsewhere, or on a write error.
+     */
+    int commit(TaskList tasks, Storage storage) throws SejongException {
+        // The staged list records the changes by id, so the staging storage's copies are not needed
+        stagedStorage.takeBatch();
+        List<StagedTaskList.Change> changes = stagedTasks.getChanges();
+        return tasks.runInOrder(() -> {
+            checkTargetsExist(changes, tasks);
+            // Inside a batch run the outer batch already saves everything at its end
+            boolean isOwnBatch = !storage.isBatching();
+            if (isOwnBatch) {
+                storage.beginBatch();
+            }
+            try {
+                Map<Integer, Integer> committedIds = new HashMap<>();
+                for (StagedTaskList.Change change : changes) {
+                    storage.save(tasks, apply(change, tasks, committedIds));
+                }
+            } finally {
+                if (isOwnBatch) {
+                    storage.endBatch(tasks);
+                }
+            }
+            return changes.size();
+        });
+    }
+
+    /**
+     * Throws the staged changes away.
+     *
+     * @return Number of changes discarded.
+     */
+    int rollback() {
+        stagedStorage.takeBatch();
+        return stagedTasks.getChanges().size();
+    }
+
+    /**
+     * Checks, before anything is applied, that every task the changes affect is still in the shared list
+     * or is added by the changes themselves.
+     */
+    private static void checkTargetsExist(List<StagedTaskList.Change> changes, TaskList tasks)
+            throws SejongException {
+        Set<Integer> addedIds = new HashSet<>();
+        for (StagedTaskList.Change change : changes) {
+            if (change.getKind() == Mutation.Kind.ADD) {
+                addedIds.add(change.getId());
+            } else if (!addedIds.contains(change.getId()) && tasks.indexOfId(change.getId()) < 0) {
+                throw new SejongException(ERROR_TRANSACTION_CONFLICT);
+            }
+        }
+    }
+
+    /**
+     * Applies a staged change to the shared list.
+     *
+     * @param committedIds Ids the tasks added so far got in the shared list, by their ids in the transaction.
+     * @return Mutation to save for the change.
+     */
+    private static Mutation apply(StagedTaskList.Change change, TaskList tasks, Map<Integer, Integer> committedIds)
+            throws SejongException {
+        if (change.getKind() == Mutation.Kind.ADD) {
+            // A copy, so the staged task keeps its id even if the shared list gives it another
+            Task task = TaskLineFormat.parse(TaskLineFormat.format(change.getTask()));
+            tasks.addTask(task);
+            committedIds.put(change.getId(), task.getId());
+            return Mutation.add(task);
+        }
+        int index = tasks.indexOfId(committedIds.getOrDefault(change.getId(), change.getId()));
+        assert index >= 0 : "Changed task should have been checked to exist";
+        switch (change.getKind()) {
+        case MARK:
+            tasks.markTask(index);
+            return Mutation.mark(index);
+        case UNMARK:
+            tasks.unmarkTask(index);
+            return Mutation.unmark(index);
+        case DELETE:
+            tasks.deleteTask(index);
+            return Mutation.delete(index);
+        default:
+            throw new SejongException("Unsupported mutation: " + change.getKind());
+        }
+    }
+}
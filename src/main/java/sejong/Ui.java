@@ -4,6 +4,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Scanner;
 
+import sejong.storage.LoadReport;
 import sejong.task.Task;
 import sejong.util.DateUtil;
 
@@ -13,6 +14,8 @@ import sejong.util.DateUtil;
  */
 public class Ui {
     private static final String LINE = "____________________________________________________________";
+    /** Number of skipped records described individually when loading. */
+    private static final int MAX_LOAD_PROBLEMS_SHOWN = 5;
     private final Scanner scanner;
     /** When non-null, show* methods append here instead of printing (GUI mode). */
     private final StringBuilder responseBuffer;
@@ -141,6 +144,25 @@ public class Ui {
         showError("Error loading tasks from file.");
     }
 
+    /**
+     * Shows which saved records were skipped while loading and why.
+     *
+     * @param report Report of the load.
+     */
+    public void showLoadReport(LoadReport report) {
+        showLine();
+        out(" Some saved tasks could not be loaded: " + report.getRecordsSkipped() + " of "
+                + report.getLinesRead() + " records were skipped.");
+        List<LoadReport.Problem> problems = report.getProblems();
+        for (int i = 0; i < Math.min(problems.size(), MAX_LOAD_PROBLEMS_SHOWN); i++) {
+            out("   " + problems.get(i));
+        }
+        if (report.getRecordsSkipped() > MAX_LOAD_PROBLEMS_SHOWN) {
+            out("   ... and " + (report.getRecordsSkipped() - MAX_LOAD_PROBLEMS_SHOWN) + " more");
+        }
+        showLine();
+    }
+
     /**
      * Shows a task that was added.
      *
@@ -213,8 +235,10 @@ public class Ui {
             out(" Your task list is empty.");
         } else {
             out(" Here are the tasks in your list:");
-            for (int i = 0; i < tasks.size(); i++) {
-                out(" " + (i + 1) + "." + tasks.get(i));
+            // Iterate rather than index, since task list snapshots take O(log n) per positional read
+            int number = 1;
+            for (Task task : tasks) {
+                out(" " + number++ + "." + task);
             }
         }
         showLine();
@@ -337,6 +361,57 @@ public class Ui {
         showLine();
     }
 
+    /**
+     * Shows how a find command would be run.
+     *
+     * @param plan Plan chosen for the search.
+     */
+    public void showQueryPlan(QueryPlan plan) {
+        showLine();
+        out(" Here is how I would search:");
+        for (String step : plan.explain().split("\n")) {
+            out("  " + step);
+        }
+        showLine();
+    }
+
+    /**
+     * Shows that a transaction has begun.
+     */
+    public void showTransactionBegun() {
+        showLine();
+        out(" Started a transaction. Your changes are kept aside until you commit or roll back.");
+        showLine();
+    }
+
+    /**
+     * Shows that a transaction was committed.
+     *
+     * @param changes Number of changes saved.
+     * @param size    Number of tasks in the list afterwards.
+     */
+    public void showTransactionCommitted(int changes, int size) {
+        showLine();
+        out(" Committed " + changes + " " + getChangeWord(changes) + ".");
+        out(" Now you have " + size + " " + getTaskWord(size) + " in the list.");
+        showLine();
+    }
+
+    /**
+     * Shows that a transaction was rolled back.
+     *
+     * @param changes Number of changes discarded.
+     */
+    public void showTransactionRolledBack(int changes) {
+        showLine();
+        out(" Rolled back " + changes + " " + getChangeWord(changes) + ". Your tasks are as they were.");
+        showLine();
+    }
+
+    private String getChangeWord(int count) {
+        return count == 1 ? "change" : "changes";
+    }
+
     /**
      * Returns the correct singular or plural form of "task".
      *
@@ -0,0 +1,16 @@
+package sejong.command;
+
+import sejong.SejongException;
+import sejong.Session;
+import sejong.Ui;
+
+/**
+ * Command to start a transaction. Later changes are kept aside until commit or rollback.
+ */
+public class BeginCommand extends Command {
+    @Override
+    public void execute(Session session, Ui ui) throws SejongException {
+        session.begin();
+        ui.showTransactionBegun();
+    }
+}
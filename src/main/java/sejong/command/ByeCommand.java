@@ -1,15 +1,20 @@
 package sejong.command;
 
-import sejong.Storage;
-import sejong.TaskList;
+import sejong.SejongException;
+import sejong.Session;
 import sejong.Ui;
 
 /**
- * Command to exit the program.
+ * Command to exit the program. Waits for any queued saves to reach the disk first.
+ * An open transaction is rolled back.
  */
 public class ByeCommand extends Command {
     @Override
-    public void execute(TaskList tasks, Ui ui, Storage storage) {
+    public void execute(Session session, Ui ui) throws SejongException {
+        if (session.hasTransaction()) {
+            session.rollback();
+        }
+        session.getStorage().flush();
         ui.showGoodbye();
     }
 
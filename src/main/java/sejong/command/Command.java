@@ -1,23 +1,22 @@
 package sejong.command;
 
 import sejong.SejongException;
-import sejong.Storage;
+import sejong.Session;
 import sejong.Ui;
-import sejong.TaskList;
 
 /**
- * Represents an executable command.
+ * Represents an executable command. Commands that only work on tasks extend {@link TaskCommand};
+ * commands that manage the session itself, such as its transactions, extend this class directly.
  */
 public abstract class Command {
     /**
-     * Executes the command.
+     * Executes the command in a session.
      *
-     * @param tasks   The task list.
+     * @param session The user's session.
      * @param ui      The user interface.
-     * @param storage The storage handler.
      * @throws SejongException If an error occurs during execution.
      */
-    public abstract void execute(TaskList tasks, Ui ui, Storage storage) throws SejongException;
+    public abstract void execute(Session session, Ui ui) throws SejongException;
 
     /**
      * Returns whether this command should exit the program.
@@ -0,0 +1,16 @@
+package sejong.command;
+
+import sejong.SejongException;
+import sejong.Session;
+import sejong.Ui;
+
+/**
+ * Command to apply and save the changes made since begin, all at once.
+ */
+public class CommitCommand extends Command {
+    @Override
+    public void execute(Session session, Ui ui) throws SejongException {
+        int changes = session.commit();
+        ui.showTransactionCommitted(changes, session.getTasks().size());
+    }
+}
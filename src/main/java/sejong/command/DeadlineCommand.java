@@ -3,6 +3,7 @@ package sejong.command;
 import sejong.SejongException;
 import sejong.Storage;
 import sejong.Ui;
+import sejong.storage.Mutation;
 import sejong.task.Deadline;
 import sejong.task.Task;
 import sejong.TaskList;
@@ -12,7 +13,7 @@ import static sejong.Messages.ERROR_DUPLICATE_TASK;
 /**
  * Command to add a deadline task.
  */
-public class DeadlineCommand extends Command {
+public class DeadlineCommand extends TaskCommand {
     private final String description;
     private final String by;
 
@@ -30,11 +31,13 @@ public class DeadlineCommand extends Command {
     @Override
     public void execute(TaskList tasks, Ui ui, Storage storage) throws SejongException {
         Task task = new Deadline(description, by);
-        if (tasks.hasDuplicate(task)) {
-            throw new SejongException(ERROR_DUPLICATE_TASK);
-        }
-        tasks.addTask(task);
-        storage.saveTasks(tasks.getTasks());
-        ui.showTaskAdded(task, tasks.size());
+        int taskCount = tasks.runInOrder(() -> {
+            if (!tasks.addTaskIfAbsent(task)) {
+                throw new SejongException(ERROR_DUPLICATE_TASK);
+            }
+            storage.save(tasks, Mutation.add(task));
+            return tasks.size();
+        });
+        ui.showTaskAdded(task, taskCount);
     }
 }
@@ -3,14 +3,16 @@ package sejong.command;
 import sejong.SejongException;
 import sejong.Storage;
 import sejong.Ui;
+import sejong.storage.Mutation;
 import sejong.task.Task;
 import sejong.TaskList;
+import sejong.TaskSelector;
 
 /**
  * Command to delete a task.
  */
-public class DeleteCommand extends Command {
-    private final int taskIndex;
+public class DeleteCommand extends TaskCommand {
+    private final TaskSelector selector;
 
     /**
      * Creates a DeleteCommand for the specified task index.
@@ -18,13 +20,28 @@ public class DeleteCommand extends Command {
      * @param taskIndex Zero-based task index.
      */
     public DeleteCommand(int taskIndex) {
-        this.taskIndex = taskIndex;
+        this(TaskSelector.byIndex(taskIndex));
+    }
+
+    /**
+     * Creates a DeleteCommand for the task picked by a selector.
+     *
+     * @param selector Position or id of the task.
+     */
+    public DeleteCommand(TaskSelector selector) {
+        this.selector = selector;
     }
 
     @Override
     public void execute(TaskList tasks, Ui ui, Storage storage) throws SejongException {
-        Task task = tasks.deleteTask(taskIndex);
-        storage.saveTasks(tasks.getTasks());
-        ui.showTaskDeleted(task, tasks.size());
+        int[] taskCount = new int[1];
+        Task task = tasks.runInOrder(() -> {
+            int taskIndex = selector.resolve(tasks);
+            Task deleted = tasks.deleteTask(taskIndex);
+            storage.save(tasks, Mutation.delete(taskIndex));
+            taskCount[0] = tasks.size();
+            return deleted;
+        });
+        ui.showTaskDeleted(task, taskCount[0]);
     }
 }
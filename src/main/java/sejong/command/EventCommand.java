@@ -3,6 +3,7 @@ package sejong.command;
 import sejong.SejongException;
 import sejong.Storage;
 import sejong.Ui;
+import sejong.storage.Mutation;
 import sejong.task.Event;
 import sejong.task.Task;
 import sejong.TaskList;
@@ -12,7 +13,7 @@ import static sejong.Messages.ERROR_DUPLICATE_TASK;
 /**
  * Command to add an event task.
  */
-public class EventCommand extends Command {
+public class EventCommand extends TaskCommand {
     private final String description;
     private final String from;
     private final String to;
@@ -33,11 +34,13 @@ public class EventCommand extends Command {
     @Override
     public void execute(TaskList tasks, Ui ui, Storage storage) throws SejongException {
         Task task = new Event(description, from, to);
-        if (tasks.hasDuplicate(task)) {
-            throw new SejongException(ERROR_DUPLICATE_TASK);
-        }
-        tasks.addTask(task);
-        storage.saveTasks(tasks.getTasks());
-        ui.showTaskAdded(task, tasks.size());
+        int taskCount = tasks.runInOrder(() -> {
+            if (!tasks.addTaskIfAbsent(task)) {
+                throw new SejongException(ERROR_DUPLICATE_TASK);
+            }
+            storage.save(tasks, Mutation.add(task));
+            return tasks.size();
+        });
+        ui.showTaskAdded(task, taskCount);
     }
 }
@@ -0,0 +1,28 @@
+package sejong.command;
+
+import sejong.SearchCriteria;
+import sejong.Storage;
+import sejong.TaskList;
+import sejong.Ui;
+
+/**
+ * Command to show how a find command would be run, without running it.
+ */
+public class ExplainCommand extends TaskCommand {
+    private final SearchCriteria criteria;
+
+    /**
+     * Creates an ExplainCommand for the specified search criteria.
+     *
+     * @param criteria Search criteria of the find command to explain.
+     */
+    public ExplainCommand(SearchCriteria criteria) {
+        assert criteria != null : "Search criteria should not be null";
+        this.criteria = criteria;
+    }
+
+    @Override
+    public void execute(TaskList tasks, Ui ui, Storage storage) {
+        ui.showQueryPlan(tasks.planQuery(criteria));
+    }
+}
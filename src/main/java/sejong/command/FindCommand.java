@@ -14,7 +14,7 @@ import sejong.task.Task;
  * 
  * Note: This file was enhanced with AI-Assisted code development using Cursor.
  */
-public class FindCommand extends Command {
+public class FindCommand extends TaskCommand {
     private final SearchCriteria criteria;
 
     /**
@@ -7,7 +7,7 @@ import sejong.TaskList;
 /**
  * Command to list all tasks.
  */
-public class ListCommand extends Command {
+public class ListCommand extends TaskCommand {
     @Override
     public void execute(TaskList tasks, Ui ui, Storage storage) {
         ui.showTaskList(tasks.getTasks());
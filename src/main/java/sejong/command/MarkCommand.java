@@ -3,14 +3,16 @@ package sejong.command;
 import sejong.SejongException;
 import sejong.Storage;
 import sejong.Ui;
+import sejong.storage.Mutation;
 import sejong.task.Task;
 import sejong.TaskList;
+import sejong.TaskSelector;
 
 /**
  * Command to mark a task as done.
  */
-public class MarkCommand extends Command {
-    private final int taskIndex;
+public class MarkCommand extends TaskCommand {
+    private final TaskSelector selector;
 
     /**
      * Creates a MarkCommand for the specified task index.
@@ -18,13 +20,26 @@ public class MarkCommand extends Command {
      * @param taskIndex Zero-based task index.
      */
     public MarkCommand(int taskIndex) {
-        this.taskIndex = taskIndex;
+        this(TaskSelector.byIndex(taskIndex));
+    }
+
+    /**
+     * Creates a MarkCommand for the task picked by a selector.
+     *
+     * @param selector Position or id of the task.
+     */
+    public MarkCommand(TaskSelector selector) {
+        this.selector = selector;
     }
 
     @Override
     public void execute(TaskList tasks, Ui ui, Storage storage) throws SejongException {
-        Task task = tasks.markTask(taskIndex);
-        storage.saveTasks(tasks.getTasks());
+        Task task = tasks.runInOrder(() -> {
+            int taskIndex = selector.resolve(tasks);
+            Task changed = tasks.markTask(taskIndex);
+            storage.save(tasks, Mutation.mark(taskIndex));
+            return changed;
+        });
         ui.showTaskMarked(task);
     }
 }
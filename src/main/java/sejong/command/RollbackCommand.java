@@ -0,0 +1,15 @@
+package sejong.command;
+
+import sejong.SejongException;
+import sejong.Session;
+import sejong.Ui;
+
+/**
+ * Command to discard the changes made since begin.
+ */
+public class RollbackCommand extends Command {
+    @Override
+    public void execute(Session session, Ui ui) throws SejongException {
+        ui.showTransactionRolledBack(session.rollback());
+    }
+}
@@ -0,0 +1,28 @@
+package sejong.command;
+
+import sejong.SejongException;
+import sejong.Session;
+import sejong.Storage;
+import sejong.TaskList;
+import sejong.Ui;
+
+/**
+ * Represents a command that works on a task list and its storage. In a session these are the ones
+ * the session currently uses, so the command needs no knowledge of transactions.
+ */
+public abstract class TaskCommand extends Command {
+    /**
+     * Executes the command.
+     *
+     * @param tasks   The task list.
+     * @param ui      The user interface.
+     * @param storage The storage handler.
+     * @throws SejongException If an error occurs during execution.
+     */
+    public abstract void execute(TaskList tasks, Ui ui, Storage storage) throws SejongException;
+
+    @Override
+    public void execute(Session session, Ui ui) throws SejongException {
+        execute(session.getTasks(), ui, session.getStorage());
+    }
+}
@@ -3,6 +3,7 @@ package sejong.command;
 import sejong.SejongException;
 import sejong.Storage;
 import sejong.Ui;
+import sejong.storage.Mutation;
 import sejong.task.Task;
 import sejong.TaskList;
 import sejong.task.Todo;
@@ -12,7 +13,7 @@ import static sejong.Messages.ERROR_DUPLICATE_TASK;
 /**
  * Command to add a todo task.
  */
-public class TodoCommand extends Command {
+public class TodoCommand extends TaskCommand {
     private final String description;
 
     /**
@@ -27,11 +28,13 @@ public class TodoCommand extends Command {
     @Override
     public void execute(TaskList tasks, Ui ui, Storage storage) throws SejongException {
         Task task = new Todo(description);
-        if (tasks.hasDuplicate(task)) {
-            throw new SejongException(ERROR_DUPLICATE_TASK);
-        }
-        tasks.addTask(task);
-        storage.saveTasks(tasks.getTasks());
-        ui.showTaskAdded(task, tasks.size());
+        int taskCount = tasks.runInOrder(() -> {
+            if (!tasks.addTaskIfAbsent(task)) {
+                throw new SejongException(ERROR_DUPLICATE_TASK);
+            }
+            storage.save(tasks, Mutation.add(task));
+            return tasks.size();
+        });
+        ui.showTaskAdded(task, taskCount);
     }
 }
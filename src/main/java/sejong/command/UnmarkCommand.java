@@ -3,14 +3,16 @@ package sejong.command;
 import sejong.SejongException;
 import sejong.Storage;
 import sejong.Ui;
+import sejong.storage.Mutation;
 import sejong.task.Task;
 import sejong.TaskList;
+import sejong.TaskSelector;
 
 /**
  * Command to mark a task as not done.
  */
-public class UnmarkCommand extends Command {
-    private final int taskIndex;
+public class UnmarkCommand extends TaskCommand {
+    private final TaskSelector selector;
 
     /**
      * Creates an UnmarkCommand for the specified task index.
@@ -18,13 +20,26 @@ public class UnmarkCommand extends Command {
      * @param taskIndex Zero-based task index.
      */
     public UnmarkCommand(int taskIndex) {
-        this.taskIndex = taskIndex;
+        this(TaskSelector.byIndex(taskIndex));
+    }
+
+    /**
+     * Creates an UnmarkCommand for the task picked by a selector.
+     *
+     * @param selector Position or id of the task.
+     */
+    public UnmarkCommand(TaskSelector selector) {
+        this.selector = selector;
     }
 
     @Override
     public void execute(TaskList tasks, Ui ui, Storage storage) throws SejongException {
-        Task task = tasks.unmarkTask(taskIndex);
-        storage.saveTasks(tasks.getTasks());
+        Task task = tasks.runInOrder(() -> {
+            int taskIndex = selector.resolve(tasks);
+            Task changed = tasks.unmarkTask(taskIndex);
+            storage.save(tasks, Mutation.unmark(taskIndex));
+            return changed;
+        });
         ui.showTaskUnmarked(task);
     }
 }
@@ -0,0 +1,119 @@
+package sejong.storage;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Replaces files without ever exposing a half-written version.
+ * Content goes to a sibling temporary file, is forced to disk according to the requested durability,
+ * and is then renamed over the target. A crash leaves either the old file or the new one.
+ */
+public class AtomicFile {
+    /** Suffix of the temporary file written next to the target. */
+    public static final String TEMP_SUFFIX = ".tmp";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Writes the content of a file.
+     */
+    public interface Content {
+        /**
+         * Writes the file content.
+         *
+         * @param writer Writer for the temporary file.
+         * @throws IOException If writing fails.
+         */
+        void writeTo(Writer writer) throws IOException;
+    }
+
+    /**
+     * Writes the content of a binary file.
+     */
+    public interface BinaryContent {
+        /**
+         * Writes the file content.
+         *
+         * @param out Buffered stream for the temporary file.
+         * @throws IOException If writing fails.
+         */
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Private constructor to prevent instantiation of utility class.
+     */
+    private AtomicFile() {
+        throw new AssertionError("AtomicFile is a utility class and should not be instantiated");
+    }
+
+    /**
+     * Atomically replaces the target file with the given UTF-8 content.
+     *
+     * @param target     File to replace.
+     * @param durability How far to force the new content to disk before the rename.
+     * @param content    Writes the new content.
+     * @throws IOException If the file cannot be written or renamed.
+     */
+    public static void write(Path target, Durability durability, Content content) throws IOException {
+        writeBinary(target, durability, out -> {
+            Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            content.writeTo(writer);
+            writer.flush();
+        });
+    }
+
+    /**
+     * Atomically replaces the target file with the given bytes.
+     *
+     * @param target     File to replace.
+     * @param durability How far to force the new content to disk before the rename.
+     * @param content    Writes the new content.
+     * @throws IOException If the file cannot be written or renamed.
+     */
+    public static void writeBinary(Path target, Durability durability, BinaryContent content) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+            content.writeTo(out);
+            out.flush();
+            durability.force(channel);
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        if (durability == Durability.FSYNC) {
+            syncDirectory(target.toAbsolutePath().getParent());
+        }
+    }
+
+    /**
+     * Forces a directory entry change (such as a rename) to disk. Platforms that cannot open
+     * directories as channels are skipped, since they do not offer this guarantee anyway.
+     *
+     * @param directory Directory to sync.
+     */
+    private static void syncDirectory(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Not supported on this platform (e.g. Windows); the rename itself is still atomic
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package sejong.storage;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+import sejong.task.Deadline;
+import sejong.task.Event;
+import sejong.task.Task;
+
+/**
+ * Writes the versioned binary data file format, which {@link BinaryTaskReader} reads.
+ * All numbers are big-endian. The file consists of:
+ * <pre>
+ * header  : magic (4) | version (2) | header size (2) | task count (4) | last id (4) | sequence (8)
+ * records : type (1) | flags (1) | reserved (2) | description length (4) | date 1 (8) | date 2 (8)
+ *           | id (4) | checksum (4) | UTF-8 description
+ * table   : offset of each record (8 each)
+ * trailer : table offset (8) | task count (4) | end magic (4)
+ * </pre>
+ * Dates are epoch days: a deadline stores its due date as date 1, an event its start and end.
+ * Descriptions are stored verbatim, so pipes need no escaping. The trailer is written last, so a
+ * truncated file is detected instead of being read as a shorter task list. The id is the task's
+ * stable id, or 0 if it has none; the last id in the header is the highest id given out, including
+ * those of deleted tasks, or 0 in files written before it was recorded. The checksum is the CRC32C
+ * of the rest of the record. Files of earlier versions are still readable: version 2 records have
+ * no id, and version 1 records have no checksum either.
+ */
+public class BinaryTaskFile {
+    /** First four bytes of every binary data file ("SJTB"). */
+    public static final int MAGIC = 0x534A5442;
+    /** Format version written by this class. */
+    public static final short VERSION = 3;
+
+    static final int END_MAGIC = 0x454E4421;
+    static final int HEADER_SIZE = 24;
+    /** Position of the last id within the header. */
+    static final int LAST_ID_OFFSET = 12;
+    /** Size of the fixed part of a record in version 1, which has no checksum. */
+    static final int RECORD_HEADER_SIZE_V1 = 24;
+    /** Position of the checksum within a version 2 record, which has no id. */
+    static final int CHECKSUM_OFFSET_V2 = 24;
+    /** Position of the id within a record. */
+    static final int ID_OFFSET = 24;
+    /** Position of the checksum within a record. */
+    static final int CHECKSUM_OFFSET = ID_OFFSET + 4;
+    static final int RECORD_HEADER_SIZE = CHECKSUM_OFFSET + 4;
+    static final int TRAILER_SIZE = 16;
+    static final int FLAG_DONE = 1;
+
+    /**
+     * Private constructor to prevent instantiation of utility class.
+     */
+    private BinaryTaskFile() {
+        throw new AssertionError("BinaryTaskFile is a utility class and should not be instantiated");
+    }
+
+    /**
+     * Atomically replaces a file with the given tasks in binary format.
+     *
+     * @param path       File to replace.
+     * @param durability How far to force the new file to disk.
+     * @param tasks      Tasks to write.
+     * @param sequence   Journal sequence number the file covers, or 0 if there is no journal.
+     * @param lastId     Highest task id given out, including deleted tasks.
+     * @return Index of the flags byte of each task in the new file.
+     * @throws IOException If the file cannot be written.
+     */
+    public static StatusIndex write(Path path, Durability durability, List<Task> tasks, long sequence,
+                                    int lastId) throws IOException {
+        StatusIndex index = new StatusIndex();
+        index.setFormat(StorageConfig.Format.BINARY);
+        AtomicFile.writeBinary(path, durability, stream -> {
+            DataOutputStream out = new DataOutputStream(stream);
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeShort(HEADER_SIZE);
+            out.writeInt(tasks.size());
+            out.writeInt(lastId);
+            out.writeLong(sequence);
+
+            long[] offsets = new long[tasks.size()];
+            long position = HEADER_SIZE;
+            int i = 0;
+            for (Task task : tasks) {
+                offsets[i++] = position;
+                long length = writeRecord(out, task);
+                index.add(position, 1, (int) length);
+                position += length;
+            }
+            for (long offset : offsets) {
+                out.writeLong(offset);
+            }
+            out.writeLong(position);
+            out.writeInt(tasks.size());
+            out.writeInt(END_MAGIC);
+            out.flush();
+            index.setFileSize(position + 8L * tasks.size() + TRAILER_SIZE);
+        });
+        return index;
+    }
+
+    /**
+     * Checks whether a file starts with the binary format's magic number.
+     *
+     * @param path File to check.
+     * @return True if the file is in binary format, false if it is missing or in another format.
+     * @throws IOException If the file cannot be read.
+     */
+    public static boolean isBinary(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            while (magic.hasRemaining() && channel.read(magic) > 0) {
+                // Keep reading until the magic number is complete or the file ends
+            }
+            return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * Returns the position of the checksum within the records of a format version, or -1 if they have none.
+     */
+    static int checksumOffset(short version) {
+        if (version >= 3) {
+            return CHECKSUM_OFFSET;
+        }
+        return version == 2 ? CHECKSUM_OFFSET_V2 : -1;
+    }
+
+    /**
+     * Checks whether a complete record matches its checksum.
+     */
+    static boolean hasValidChecksum(byte[] record, int checksumOffset) {
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        return buffer.getInt(checksumOffset) == checksum(buffer, checksumOffset);
+    }
+
+    /**
+     * Recomputes the checksum of a complete record after its content has changed.
+     */
+    static void writeChecksum(byte[] record, int checksumOffset) {
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        buffer.putInt(checksumOffset, checksum(buffer, checksumOffset));
+    }
+
+    /**
+     * Computes the checksum of the record starting at the buffer's position and ending at its limit.
+     * The buffer's position and limit are left unchanged.
+     */
+    static int checksum(ByteBuffer record, int checksumOffset) {
+        CRC32C crc = new CRC32C();
+        int start = record.position();
+        crc.update(record.duplicate().limit(start + checksumOffset));
+        crc.update(record.duplicate().position(start + checksumOffset + 4));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Writes one record and returns its size in bytes.
+     */
+    private static long writeRecord(DataOutputStream out, Task task) throws IOException {
+        byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+        byte type = 'T';
+        long first = 0;
+        long second = 0;
+        if (task instanceof Deadline) {
+            type = 'D';
+            first = ((Deadline) task).getBy().toEpochDay();
+        } else if (task instanceof Event) {
+            type = 'E';
+            first = ((Event) task).getFrom().toEpochDay();
+            second = ((Event) task).getTo().toEpochDay();
+        }
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + description.length);
+        record.put(type);
+        record.put((byte) (task.isDone() ? FLAG_DONE : 0));
+        record.putShort((short) 0);
+        record.putInt(description.length);
+        record.putLong(first);
+        record.putLong(second);
+        record.putInt(task.getId());
+        record.putInt(0);
+        record.put(description);
+        writeChecksum(record.array(), CHECKSUM_OFFSET);
+        out.write(record.array());
+        return record.capacity();
+    }
+}
@@ -0,0 +1,230 @@
+package sejong.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import sejong.SejongException;
+import sejong.task.Deadline;
+import sejong.task.Event;
+import sejong.task.Task;
+import sejong.task.Todo;
+
+/**
+ * Reads a file written by {@link BinaryTaskFile}.
+ * Opening the file reads it into memory with one bulk read and closes it again, so the file is never
+ * held open or mapped and can be replaced straight away, even on platforms that refuse to rename over
+ * an open file. After that only the header and trailer are validated; each task is decoded on demand
+ * from its offset in the record table, so a single task can be read without decoding the rest.
+ * A record's checksum is verified whenever it is decoded.
+ * Absolute reads never move the buffer's position, so one reader can be shared between threads.
+ */
+public class BinaryTaskReader {
+    private final String source;
+    private final ByteBuffer buffer;
+    private final int taskCount;
+    private final long sequence;
+    private final int tableOffset;
+    private final boolean hasChecksums;
+    private final boolean hasIds;
+    /** Position of the checksum within a record, or -1 if records have none. */
+    private final int checksumOffset;
+    private final int recordHeaderSize;
+
+    private BinaryTaskReader(String source, ByteBuffer buffer, int taskCount, long sequence,
+                             int tableOffset, short version) {
+        this.source = source;
+        this.buffer = buffer;
+        this.taskCount = taskCount;
+        this.sequence = sequence;
+        this.tableOffset = tableOffset;
+        this.checksumOffset = BinaryTaskFile.checksumOffset(version);
+        this.hasChecksums = checksumOffset >= 0;
+        this.hasIds = version >= 3;
+        this.recordHeaderSize = hasChecksums ? checksumOffset + 4 : BinaryTaskFile.RECORD_HEADER_SIZE_V1;
+    }
+
+    /**
+     * Reads a binary data file into memory and checks its header and trailer.
+     *
+     * @param path File to open.
+     * @return Reader over the file's contents.
+     * @throws IOException If the file cannot be read or is not a complete binary data file.
+     */
+    public static BinaryTaskReader open(Path path) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Binary data file is too large to read: " + size + " bytes");
+            }
+            if (size < BinaryTaskFile.HEADER_SIZE + BinaryTaskFile.TRAILER_SIZE) {
+                throw new IOException("Binary data file is truncated");
+            }
+            buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("Binary data file is truncated");
+                }
+            }
+        }
+
+        int size = buffer.capacity();
+        if (buffer.getInt(0) != BinaryTaskFile.MAGIC) {
+            throw new IOException("Not a binary data file");
+        }
+        short version = buffer.getShort(4);
+        if (version < 1 || version > BinaryTaskFile.VERSION) {
+            throw new IOException("Unsupported binary data file version: " + version);
+        }
+        int trailer = size - BinaryTaskFile.TRAILER_SIZE;
+        int taskCount = buffer.getInt(8);
+        long tableOffset = buffer.getLong(trailer);
+        if (buffer.getInt(trailer + 12) != BinaryTaskFile.END_MAGIC || buffer.getInt(trailer + 8) != taskCount
+                || taskCount < 0 || tableOffset < buffer.getShort(6) || tableOffset + 8L * taskCount != trailer) {
+            throw new IOException("Binary data file is truncated");
+        }
+        return new BinaryTaskReader(String.valueOf(path.getFileName()), buffer, taskCount, buffer.getLong(16),
+                (int) tableOffset, version);
+    }
+
+    /**
+     * Returns the number of tasks in the file.
+     *
+     * @return Task count.
+     */
+    public int size() {
+        return taskCount;
+    }
+
+    /**
+     * Returns the journal sequence number the file covers.
+     *
+     * @return Sequence number, or 0 if the file was written without a journal.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns the highest task id given out when the file was written, including deleted tasks.
+     *
+     * @return Last id, or 0 if the file does not record it.
+     */
+    public int getLastId() {
+        return buffer.getInt(BinaryTaskFile.LAST_ID_OFFSET);
+    }
+
+    /**
+     * Decodes the task at the given position.
+     *
+     * @param index Zero-based task index.
+     * @return Decoded task.
+     * @throws SejongException If the record is corrupted.
+     */
+    public Task getTask(int index) throws SejongException {
+        assert index >= 0 && index < taskCount : "Task index should be within bounds";
+        try {
+            return decode(recordOffset(index));
+        } catch (IndexOutOfBoundsException | DateTimeException e) {
+            throw new SejongException("Invalid task record");
+        }
+    }
+
+    /**
+     * Decodes every task in file order, skipping corrupted records.
+     *
+     * @return Decoded tasks.
+     */
+    public List<Task> readAll() {
+        return readAll(null, null);
+    }
+
+    /**
+     * Decodes every task in file order, skipping corrupted records, and records where each decoded
+     * task is stored.
+     *
+     * @param index  Index to add record locations to, or null.
+     * @param report Report to count records in and describe skipped ones, or null.
+     * @return Decoded tasks.
+     */
+    List<Task> readAll(StatusIndex index, LoadReport report) {
+        List<Task> tasks = new ArrayList<>(taskCount);
+        if (index != null && hasChecksums) {
+            index.setChecksumOffset(checksumOffset);
+        }
+        for (int i = 0; i < taskCount; i++) {
+            if (report != null) {
+                report.lineRead();
+            }
+            long offset = buffer.getLong(tableOffset + 8 * i);
+            try {
+                tasks.add(getTask(i));
+                if (index != null) {
+                    int length = recordHeaderSize + buffer.getInt((int) offset + 4);
+                    index.add(offset, 1, hasChecksums ? length : 0);
+                }
+            } catch (SejongException e) {
+                // Skip corrupted records but continue loading, like the text format
+                if (report != null) {
+                    report.skip(source, offset, e.getMessage());
+                }
+            }
+        }
+        return tasks;
+    }
+
+    private int recordOffset(int index) throws SejongException {
+        long offset = buffer.getLong(tableOffset + 8 * index);
+        if (offset < 0 || offset > tableOffset - recordHeaderSize) {
+            throw new SejongException("Invalid task record");
+        }
+        return (int) offset;
+    }
+
+    private Task decode(int offset) throws SejongException {
+        byte type = buffer.get(offset);
+        boolean isDone = (buffer.get(offset + 1) & BinaryTaskFile.FLAG_DONE) != 0;
+        int length = buffer.getInt(offset + 4);
+        int descriptionStart = offset + recordHeaderSize;
+        if (length <= 0 || length > tableOffset - descriptionStart) {
+            throw new SejongException("Invalid task record");
+        }
+        if (hasChecksums && buffer.getInt(offset + checksumOffset) != BinaryTaskFile.checksum(
+                buffer.duplicate().position(offset).limit(descriptionStart + length), checksumOffset)) {
+            throw new SejongException("Checksum mismatch");
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(descriptionStart, bytes);
+        String description = new String(bytes, StandardCharsets.UTF_8);
+
+        Task task = createTask(type, description, isDone, offset);
+        int id = hasIds ? buffer.getInt(offset + BinaryTaskFile.ID_OFFSET) : 0;
+        if (id > 0) {
+            task.setId(id);
+        }
+        return task;
+    }
+
+    private Task createTask(byte type, String description, boolean isDone, int offset) throws SejongException {
+        switch (type) {
+        case 'T':
+            return new Todo(description, isDone);
+        case 'D':
+            return new Deadline(description, LocalDate.ofEpochDay(buffer.getLong(offset + 8)), isDone);
+        case 'E':
+            LocalDate from = LocalDate.ofEpochDay(buffer.getLong(offset + 8));
+            LocalDate to = LocalDate.ofEpochDay(buffer.getLong(offset + 16));
+            return new Event(description, from, to, isDone);
+        default:
+            throw new SejongException("Unknown task type");
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package sejong.storage;
+
+/**
+ * Thresholds that decide when the journal is folded into a fresh snapshot of the data file.
+ * Compaction is triggered as soon as any one threshold is reached; a non-positive value disables it.
+ */
+public class CompactionPolicy {
+    /** Default journal size that triggers compaction (1 MiB). */
+    public static final long DEFAULT_MAX_BYTES = 1024 * 1024;
+    /** Default number of journal records that triggers compaction. */
+    public static final long DEFAULT_MAX_RECORDS = 10_000;
+    /** Default estimated replay time that triggers compaction. */
+    public static final long DEFAULT_MAX_REPLAY_MILLIS = 200;
+    /** Replay cost assumed per record until a load has measured the real cost. */
+    private static final long DEFAULT_NANOS_PER_RECORD = 2_000;
+
+    private final long maxBytes;
+    private final long maxRecords;
+    private final long maxReplayMillis;
+
+    /**
+     * Creates a compaction policy.
+     *
+     * @param maxBytes        Journal size in bytes that triggers compaction.
+     * @param maxRecords      Number of journal records that triggers compaction.
+     * @param maxReplayMillis Estimated startup replay time that triggers compaction.
+     */
+    public CompactionPolicy(long maxBytes, long maxRecords, long maxReplayMillis) {
+        this.maxBytes = maxBytes;
+        this.maxRecords = maxRecords;
+        this.maxReplayMillis = maxReplayMillis;
+    }
+
+    /**
+     * Returns the default policy.
+     *
+     * @return Default compaction policy.
+     */
+    public static CompactionPolicy defaults() {
+        return new CompactionPolicy(DEFAULT_MAX_BYTES, DEFAULT_MAX_RECORDS, DEFAULT_MAX_REPLAY_MILLIS);
+    }
+
+    /**
+     * Checks whether a journal of the given size should be compacted.
+     *
+     * @param bytes           Current journal size in bytes.
+     * @param records         Number of records in the journal.
+     * @param nanosPerRecord  Measured replay cost per record, or 0 if unknown.
+     * @return True if any threshold is reached.
+     */
+    public boolean shouldCompact(long bytes, long records, long nanosPerRecord) {
+        if (records == 0) {
+            return false;
+        }
+        if (maxBytes > 0 && bytes >= maxBytes) {
+            return true;
+        }
+        if (maxRecords > 0 && records >= maxRecords) {
+            return true;
+        }
+        long costPerRecord = nanosPerRecord > 0 ? nanosPerRecord : DEFAULT_NANOS_PER_RECORD;
+        return maxReplayMillis > 0 && records * costPerRecord / 1_000_000 >= maxReplayMillis;
+    }
+
+    /**
+     * Returns the journal size in bytes that triggers compaction.
+     *
+     * @return Threshold, or a non-positive value if disabled.
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Returns the journal record count that triggers compaction.
+     *
+     * @return Threshold, or a non-positive value if disabled.
+     */
+    public long getMaxRecords() {
+        return maxRecords;
+    }
+
+    /**
+     * Returns the estimated replay time in milliseconds that triggers compaction.
+     *
+     * @return Threshold, or a non-positive value if disabled.
+     */
+    public long getMaxReplayMillis() {
+        return maxReplayMillis;
+    }
+}
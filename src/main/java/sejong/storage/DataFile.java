@@ -0,0 +1,354 @@
+package sejong.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import sejong.task.Task;
+
+/**
+ * Reads and writes the data file. The text format is an optional sequence header and an optional
+ * last id header, followed by one task per line; the binary format is described in
+ * {@link BinaryTaskFile}. Reading detects the format from the file itself, so a file written in either
+ * format can be loaded under any configuration. Large text files can be parsed in parallel: the file
+ * is cut into line-aligned chunks that are parsed on the fork-join pool and stitched back together
+ * in file order, since task indexes are positional.
+ */
+public class DataFile {
+    /** Prefix of the optional first line recording the last journal sequence covered by the data file. */
+    public static final String SEQUENCE_HEADER = "# sequence ";
+    /**
+     * Prefix of the optional header line recording the highest task id given out, written only when it
+     * belongs to a deleted task and so cannot be told from the tasks themselves.
+     */
+    public static final String LAST_ID_HEADER = "# last id ";
+    /** Target size of each chunk when loading in parallel; smaller files are read on one thread. */
+    static final long PARALLEL_CHUNK_BYTES = 4 * 1024 * 1024;
+
+    private static final byte[] SEQUENCE_HEADER_BYTES = SEQUENCE_HEADER.getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LAST_ID_HEADER_BYTES = LAST_ID_HEADER.getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Private constructor to prevent instantiation of utility class.
+     */
+    private DataFile() {
+        throw new AssertionError("DataFile is a utility class and should not be instantiated");
+    }
+
+    /**
+     * Reads the tasks in a data file in either format. Lines or records that cannot be parsed are skipped.
+     *
+     * @param path       Data file to read; a missing file has no tasks.
+     * @param tasks      List to add the loaded tasks to, in file order.
+     * @param isParallel Whether to parse large text files in parallel chunks.
+     * @return Journal sequence number covered by the file, or 0 if it has no header.
+     * @throws IOException If the file cannot be read.
+     */
+    public static long read(Path path, List<Task> tasks, boolean isParallel) throws IOException {
+        return read(path, tasks, isParallel, null, null);
+    }
+
+    /**
+     * Reads the tasks in a data file in either format, indexing where each task is stored and
+     * reporting what was skipped. Lines or records that cannot be parsed or fail their checksum are
+     * skipped and take no entry in the index.
+     *
+     * @param path       Data file to read; a missing file has no tasks.
+     * @param tasks      List to add the loaded tasks to, in file order.
+     * @param isParallel Whether to parse large text files in parallel chunks.
+     * @param index      Empty index to fill with record locations, or null.
+     * @param report     Report to count lines in, describe skipped ones and note the recorded last id in,
+     *                   or null.
+     * @return Journal sequence number covered by the file, or 0 if it has no header.
+     * @throws IOException If the file cannot be read.
+     */
+    public static long read(Path path, List<Task> tasks, boolean isParallel, StatusIndex index,
+                            LoadReport report) throws IOException {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        if (index != null) {
+            index.setFileSize(Files.size(path));
+        }
+        if (BinaryTaskFile.isBinary(path)) {
+            if (index != null) {
+                index.setFormat(StorageConfig.Format.BINARY);
+            }
+            BinaryTaskReader reader = BinaryTaskReader.open(path);
+            tasks.addAll(reader.readAll(index, report));
+            if (report != null) {
+                report.idGiven(reader.getLastId());
+            }
+            return reader.getSequence();
+        }
+        if (isParallel && Files.size(path) >= 2 * PARALLEL_CHUNK_BYTES) {
+            return readParallel(path, tasks, index, report, PARALLEL_CHUNK_BYTES);
+        }
+        ChunkParser parser = new ChunkParser(String.valueOf(path.getFileName()), tasks, index, report);
+        TaskFileReader.forEachLine(path, parser);
+        return parser.sequence;
+    }
+
+    /**
+     * Atomically replaces a data file with the given tasks.
+     *
+     * @param path       Data file to replace.
+     * @param format     Format to write.
+     * @param durability How far to force the new file to disk.
+     * @param tasks      Tasks to write.
+     * @param sequence   Journal sequence number the file covers, or 0 to omit the header.
+     * @param lastId     Highest task id given out, including deleted tasks.
+     * @return Index of the status field of each task in the new file.
+     * @throws IOException If the file cannot be written.
+     */
+    public static StatusIndex write(Path path, StorageConfig.Format format, Durability durability,
+                                    List<Task> tasks, long sequence, int lastId) throws IOException {
+        if (format == StorageConfig.Format.BINARY) {
+            return BinaryTaskFile.write(path, durability, tasks, sequence, lastId);
+        }
+        // Ids increase along the list, so the header is only needed if the last tasks were deleted
+        boolean hasLastIdHeader = lastId > (tasks.isEmpty() ? 0 : tasks.get(tasks.size() - 1).getId());
+        StatusIndex index = new StatusIndex();
+        byte[] separator = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+        AtomicFile.writeBinary(path, durability, out -> {
+            long position = 0;
+            if (sequence > 0) {
+                byte[] header = (SEQUENCE_HEADER + sequence).getBytes(StandardCharsets.UTF_8);
+                out.write(header);
+                out.write(separator);
+                position += header.length + separator.length;
+            }
+            if (hasLastIdHeader) {
+                byte[] header = (LAST_ID_HEADER + lastId).getBytes(StandardCharsets.UTF_8);
+                out.write(header);
+                out.write(separator);
+                position += header.length + separator.length;
+            }
+            for (Task task : tasks) {
+                byte[] line = TaskLineFormat.format(task).getBytes(StandardCharsets.UTF_8);
+                index.add(position, TaskLineFormat.STATUS_COLUMN, line.length);
+                out.write(line);
+                out.write(separator);
+                position += line.length + separator.length;
+            }
+            index.setFileSize(position);
+        });
+        return index;
+    }
+
+    /**
+     * Converts a data file to the given format in place, keeping its tasks, sequence number and last id.
+     * Use this to migrate between the text and binary formats outside of a running Storage.
+     *
+     * @param path       Data file to convert.
+     * @param format     Format to convert to.
+     * @param durability How far to force the converted file to disk.
+     * @throws IOException If the file cannot be read or written.
+     */
+    public static void migrate(Path path, StorageConfig.Format format, Durability durability) throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        LoadReport report = new LoadReport();
+        long sequence = read(path, tasks, true, null, report);
+        write(path, format, durability, tasks, sequence, report.getLastId());
+    }
+
+    /**
+     * Parses the file as chunks of roughly chunkBytes on the common fork-join pool.
+     */
+    static long readParallel(Path path, List<Task> tasks, StatusIndex index, LoadReport report,
+                             long chunkBytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            List<Long> boundaries = findChunkBoundaries(channel, chunkBytes);
+            List<ChunkTask> chunks = new ArrayList<>();
+            for (int i = 0; i + 1 < boundaries.size(); i++) {
+                ChunkParser parser = new ChunkParser(String.valueOf(path.getFileName()), new ArrayList<>(),
+                        index != null ? new StatusIndex() : null, report != null ? new LoadReport() : null);
+                chunks.add(new ChunkTask(channel, boundaries.get(i), boundaries.get(i + 1), parser));
+            }
+            ForkJoinTask.invokeAll(chunks);
+
+            long sequence = 0;
+            for (ChunkTask chunk : chunks) {
+                if (chunk.error != null) {
+                    throw chunk.error;
+                }
+                tasks.addAll(chunk.parser.tasks);
+                if (index != null) {
+                    index.addAll(chunk.parser.index);
+                }
+                if (report != null) {
+                    report.addAll(chunk.parser.report);
+                }
+                if (chunk.parser.hasHeader) {
+                    sequence = chunk.parser.sequence;
+                }
+            }
+            return sequence;
+        }
+    }
+
+    /**
+     * Returns chunk start offsets, each just after a line terminator, ending with the file size.
+     */
+    private static List<Long> findChunkBoundaries(FileChannel channel, long chunkBytes) throws IOException {
+        long size = channel.size();
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(8 * 1024);
+        long candidate = chunkBytes;
+        while (candidate < size) {
+            long lineStart = nextLineStart(channel, candidate, probe);
+            if (lineStart >= size) {
+                break;
+            }
+            boundaries.add(lineStart);
+            candidate = lineStart + chunkBytes;
+        }
+        boundaries.add(size);
+        return boundaries;
+    }
+
+    /**
+     * Returns the offset just after the first line terminator at or after position.
+     */
+    private static long nextLineStart(FileChannel channel, long position, ByteBuffer probe) throws IOException {
+        long offset = position;
+        while (true) {
+            probe.clear();
+            int read = channel.read(probe, offset);
+            if (read <= 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = probe.get(i);
+                if (b == '\n' || b == '\r') {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+    }
+
+    /**
+     * Parses one line-aligned byte range of the file.
+     */
+    private static class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final long from;
+        private final long to;
+        private final ChunkParser parser;
+        private IOException error;
+
+        ChunkTask(FileChannel channel, long from, long to, ChunkParser parser) {
+            this.channel = channel;
+            this.from = from;
+            this.to = to;
+            this.parser = parser;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                TaskFileReader.readLines(channel, from, to, parser);
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+    }
+
+    /**
+     * Turns lines into tasks, remembering the sequence header if one is seen and noting the last id header
+     * in the report. If given an index, it
+     * records where each task is stored; if given a report, it counts lines and describes skipped ones.
+     */
+    private static class ChunkParser implements TaskFileReader.LineHandler {
+        private final String source;
+        private final List<Task> tasks;
+        private final StatusIndex index;
+        private final LoadReport report;
+        private long sequence;
+        private boolean hasHeader;
+
+        ChunkParser(String source, List<Task> tasks, StatusIndex index, LoadReport report) {
+            this.source = source;
+            this.tasks = tasks;
+            this.index = index;
+            this.report = report;
+        }
+
+        @Override
+        public void onLine(byte[] bytes, int start, int end, long fileOffset) {
+            if (startsWith(bytes, start, end, SEQUENCE_HEADER_BYTES)) {
+                sequence = parseHeaderNumber(bytes, start + SEQUENCE_HEADER_BYTES.length, end);
+                hasHeader = true;
+                return;
+            }
+            if (startsWith(bytes, start, end, LAST_ID_HEADER_BYTES)) {
+                if (report != null) {
+                    report.idGiven((int) parseHeaderNumber(bytes, start + LAST_ID_HEADER_BYTES.length, end));
+                }
+                return;
+            }
+            if (isBlank(bytes, start, end)) {
+                return;
+            }
+            if (report != null) {
+                report.lineRead();
+            }
+            try {
+                Task task = TaskLineFormat.parse(bytes, start, end);
+                assert task != null : "Parsed task should not be null";
+                tasks.add(task);
+                if (index != null) {
+                    int status = TaskLineFormat.statusPosition(bytes, start, end);
+                    boolean hasChecksum = TaskLineFormat.checksumStart(bytes, start, end) >= 0;
+                    index.add(fileOffset, status < 0 ? -1 : status - start, hasChecksum ? end - start : 0);
+                }
+            } catch (Exception e) {
+                // Skip corrupted lines but continue loading, noting where and why for the load report
+                if (report != null) {
+                    report.skip(source, fileOffset, e.getMessage() != null ? e.getMessage() : e.toString());
+                }
+            }
+        }
+    }
+
+    private static boolean startsWith(byte[] bytes, int start, int end, byte[] prefix) {
+        if (end - start < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[start + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isBlank(byte[] bytes, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if ((bytes[i] & 0xff) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long parseHeaderNumber(byte[] bytes, int start, int end) {
+        try {
+            return Long.parseLong(new String(bytes, start, end - start, StandardCharsets.US_ASCII).trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
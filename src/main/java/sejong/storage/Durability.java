@@ -0,0 +1,35 @@
+package sejong.storage;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+/**
+ * How hard Storage pushes written data towards the disk before reporting success.
+ */
+public enum Durability {
+    /** Hand the bytes to the operating system and return; a power loss may drop recent saves. */
+    NONE,
+    /** Force file contents to the device, but not necessarily file metadata. */
+    FLUSH,
+    /** Force contents and metadata, and sync the directory after a rename. */
+    FSYNC;
+
+    /**
+     * Forces the channel's contents to disk as far as this level requires.
+     *
+     * @param channel Channel that was written to.
+     * @throws IOException If the channel cannot be forced.
+     */
+    public void force(FileChannel channel) throws IOException {
+        switch (this) {
+        case FLUSH:
+            channel.force(false);
+            break;
+        case FSYNC:
+            channel.force(true);
+            break;
+        default:
+            break;
+        }
+    }
+}
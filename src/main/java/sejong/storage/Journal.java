@@ -0,0 +1,257 @@
+package sejong.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import sejong.SejongException;
+import sejong.task.Task;
+
+/**
+ * Append-only log of mutations kept next to the data file.
+ * Each record is one line: SEQUENCE | KIND | PAYLOAD. Records are replayed on top of the data file
+ * when loading, skipping those whose sequence number the data file already covers. Replay stops at the
+ * first record that cannot be applied, since every record after it addresses tasks by position.
+ */
+public class Journal {
+    /** Suffix appended to the data file path to name its journal. */
+    public static final String SUFFIX = ".journal";
+
+    private final Path path;
+    private final Durability durability;
+
+    /**
+     * Creates a journal stored at the given path.
+     *
+     * @param path       Path of the journal file.
+     * @param durability How far each append is forced to disk.
+     */
+    public Journal(Path path, Durability durability) {
+        assert path != null : "Journal path should not be null";
+        assert durability != null : "Durability should not be null";
+        this.path = path;
+        this.durability = durability;
+    }
+
+    /**
+     * Returns the path of the journal file.
+     *
+     * @return Journal path.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Appends one record to the end of the journal.
+     *
+     * @param sequence Sequence number of the record.
+     * @param mutation Mutation to record.
+     * @return Number of bytes appended.
+     * @throws IOException If the journal cannot be written.
+     */
+    public int append(long sequence, Mutation mutation) throws IOException {
+        return appendAll(sequence, List.of(mutation));
+    }
+
+    /**
+     * Appends a batch of records with a single write, forcing the journal to disk once for the batch.
+     *
+     * @param firstSequence Sequence number of the first record; later records follow consecutively.
+     * @param mutations     Mutations to record, in the order they were applied.
+     * @return Number of bytes appended.
+     * @throws IOException If the journal cannot be written.
+     */
+    public int appendAll(long firstSequence, List<Mutation> mutations) throws IOException {
+        StringBuilder records = new StringBuilder();
+        long sequence = firstSequence;
+        for (Mutation mutation : mutations) {
+            records.append(toRecord(sequence++, mutation)).append(System.lineSeparator());
+        }
+        byte[] bytes = records.toString().getBytes(StandardCharsets.UTF_8);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            durability.force(channel);
+        }
+        return bytes.length;
+    }
+
+    /**
+     * Returns the current size of the journal file.
+     *
+     * @return Size in bytes, or 0 if the journal does not exist.
+     * @throws IOException If the size cannot be read.
+     */
+    public long size() throws IOException {
+        return Files.exists(path) ? Files.size(path) : 0;
+    }
+
+    /**
+     * Replays journal records newer than the given sequence number onto the task list, stopping at the
+     * first record that cannot be parsed or applied.
+     *
+     * @param tasks         Tasks loaded from the data file; modified in place.
+     * @param afterSequence Sequence number already reflected in the data file.
+     * @return Highest sequence number applied, or afterSequence if none was.
+     * @throws IOException If the journal cannot be read.
+     */
+    public long replay(List<Task> tasks, long afterSequence) throws IOException {
+        return replay(tasks, afterSequence, Long.MAX_VALUE);
+    }
+
+    /**
+     * Replays journal records in the range (afterSequence, upToSequence] onto the task list, stopping at
+     * the first record that cannot be parsed or applied. Records address tasks by position, so once one
+     * is lost every later record could change the wrong task.
+     *
+     * @param tasks         Tasks loaded from the data file; modified in place.
+     * @param afterSequence Sequence number already reflected in the data file.
+     * @param upToSequence  Last sequence number to apply.
+     * @return Highest sequence number applied, or afterSequence if none was.
+     * @throws IOException If the journal cannot be read.
+     */
+    public long replay(List<Task> tasks, long afterSequence, long upToSequence) throws IOException {
+        return replay(tasks, afterSequence, upToSequence, null, false);
+    }
+
+    /**
+     * Replays every journal record newer than the given sequence number onto the task list when loading.
+     * The first record that cannot be parsed or applied, such as one torn by a crash, is treated as the
+     * end of the journal: it is described in the report, and the journal is truncated before it, so that
+     * records appended later follow the last record that was applied.
+     *
+     * @param tasks         Tasks loaded from the data file; modified in place.
+     * @param afterSequence Sequence number already reflected in the data file.
+     * @param report        Report to count records in, describe the record replay stopped at, and note
+     *                      the ids of added tasks in.
+     * @return Highest sequence number applied, or afterSequence if none was.
+     * @throws IOException If the journal cannot be read or truncated.
+     */
+    public long recover(List<Task> tasks, long afterSequence, LoadReport report) throws IOException {
+        assert report != null : "Load report should not be null";
+        return replay(tasks, afterSequence, Long.MAX_VALUE, report, true);
+    }
+
+    private long replay(List<Task> tasks, long afterSequence, long upToSequence, LoadReport report,
+                        boolean isTruncatingTail) throws IOException {
+        long[] lastSequence = {afterSequence};
+        if (!Files.exists(path)) {
+            return lastSequence[0];
+        }
+        String source = String.valueOf(path.getFileName());
+        boolean[] isStopped = {false};
+        long[] badOffset = {-1};
+        TaskFileReader.forEachLine(path, (bytes, start, end, offset) -> {
+            String line = new String(bytes, start, end - start, StandardCharsets.UTF_8);
+            if (isStopped[0] || line.trim().isEmpty()) {
+                return;
+            }
+            if (report != null) {
+                report.lineRead();
+            }
+            try {
+                int first = line.indexOf(TaskLineFormat.DELIMITER);
+                int second = line.indexOf(TaskLineFormat.DELIMITER, first + 1);
+                if (first < 0 || second < 0) {
+                    throw new SejongException("Invalid journal record");
+                }
+                long sequence = Long.parseLong(line.substring(0, first).trim());
+                if (sequence <= lastSequence[0]) {
+                    return;
+                }
+                if (sequence > upToSequence) {
+                    isStopped[0] = true;
+                    return;
+                }
+                String code = line.substring(first + TaskLineFormat.DELIMITER.length(), second).trim();
+                String payload = line.substring(second + TaskLineFormat.DELIMITER.length());
+                Mutation mutation = Mutation.fromPayload(code, payload);
+                mutation.applyTo(tasks);
+                if (report != null && mutation.getKind() == Mutation.Kind.ADD) {
+                    // The task may be deleted by a later record, but its id stays given out
+                    report.idGiven(tasks.get(tasks.size() - 1).getId());
+                }
+                lastSequence[0] = sequence;
+            } catch (NumberFormatException | SejongException e) {
+                isStopped[0] = true;
+                badOffset[0] = offset;
+                if (report != null) {
+                    String reason = e instanceof NumberFormatException ? "Invalid journal sequence" : e.getMessage();
+                    report.skip(source, offset, reason + "; replay stopped here and later records were dropped");
+                }
+            }
+        });
+        if (isTruncatingTail && badOffset[0] >= 0) {
+            truncateAt(badOffset[0]);
+        }
+        return lastSequence[0];
+    }
+
+    /**
+     * Cuts the journal off at the given byte offset.
+     */
+    private void truncateAt(long offset) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(offset);
+            durability.force(channel);
+        }
+    }
+
+    /**
+     * Drops every record up to and including the given sequence number, keeping newer records.
+     * The remaining records are written through {@link AtomicFile}, so an interrupted truncation
+     * leaves the old journal intact.
+     *
+     * @param sequence Last sequence number to drop.
+     * @throws IOException If the journal cannot be rewritten.
+     */
+    public void truncateThrough(long sequence) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        List<String> kept = new ArrayList<>();
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            int first = line.indexOf(TaskLineFormat.DELIMITER);
+            try {
+                if (first > 0 && Long.parseLong(line.substring(0, first).trim()) > sequence) {
+                    kept.add(line);
+                }
+            } catch (NumberFormatException e) {
+                // Drop torn records; replay never gets past them
+            }
+        }
+        if (kept.isEmpty()) {
+            clear();
+            return;
+        }
+        AtomicFile.write(path, durability, writer -> {
+            for (String line : kept) {
+                writer.write(line + System.lineSeparator());
+            }
+        });
+    }
+
+    /**
+     * Deletes the journal file, if present.
+     *
+     * @throws IOException If the file exists but cannot be deleted.
+     */
+    public void clear() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    private static String toRecord(long sequence, Mutation mutation) {
+        return sequence + TaskLineFormat.DELIMITER + mutation.getKind().getCode()
+                + TaskLineFormat.DELIMITER + mutation.toPayload();
+    }
+}
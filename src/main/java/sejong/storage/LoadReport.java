@@ -0,0 +1,165 @@
+package sejong.storage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Summary of a load: how many lines were read and which were skipped, where and why, and the highest
+ * task id the files record as given out.
+ * Only the first {@link #MAX_PROBLEMS} skipped records are described individually, so a badly
+ * damaged file cannot exhaust memory; the skip count always covers all of them.
+ */
+public class LoadReport {
+    /** Maximum number of skipped records described individually. */
+    public static final int MAX_PROBLEMS = 100;
+
+    /**
+     * A record that was skipped while loading.
+     */
+    public static class Problem {
+        private final String source;
+        private final long offset;
+        private final String reason;
+
+        /**
+         * Creates a problem entry.
+         *
+         * @param source Name of the file the record was read from.
+         * @param offset Byte offset of the record within the file.
+         * @param reason Why the record was skipped.
+         */
+        public Problem(String source, long offset, String reason) {
+            this.source = source;
+            this.offset = offset;
+            this.reason = reason;
+        }
+
+        /**
+         * Returns the name of the file the record was read from.
+         *
+         * @return File name.
+         */
+        public String getSource() {
+            return source;
+        }
+
+        /**
+         * Returns the byte offset of the record within its file.
+         *
+         * @return Byte offset.
+         */
+        public long getOffset() {
+            return offset;
+        }
+
+        /**
+         * Returns why the record was skipped.
+         *
+         * @return Reason.
+         */
+        public String getReason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return source + " at byte " + offset + ": " + reason;
+        }
+    }
+
+    private long linesRead;
+    private long recordsSkipped;
+    private final List<Problem> problems = new ArrayList<>();
+    private int lastId;
+
+    /**
+     * Counts one non-blank line or binary record that was read.
+     */
+    void lineRead() {
+        linesRead++;
+    }
+
+    /**
+     * Records a line or binary record that was skipped.
+     *
+     * @param source Name of the file it was read from.
+     * @param offset Byte offset within the file.
+     * @param reason Why it was skipped.
+     */
+    void skip(String source, long offset, String reason) {
+        recordsSkipped++;
+        if (problems.size() < MAX_PROBLEMS) {
+            problems.add(new Problem(source, offset, reason));
+        }
+    }
+
+    /**
+     * Records that a task id was given out, whether or not the task is still in the list.
+     *
+     * @param id Task id.
+     */
+    void idGiven(int id) {
+        lastId = Math.max(lastId, id);
+    }
+
+    /**
+     * Adds the counts and problems of a report covering a later part of the same load.
+     */
+    void addAll(LoadReport other) {
+        linesRead += other.linesRead;
+        recordsSkipped += other.recordsSkipped;
+        idGiven(other.lastId);
+        for (Problem problem : other.problems) {
+            if (problems.size() < MAX_PROBLEMS) {
+                problems.add(problem);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of non-blank lines and binary records read from the data file and journal.
+     *
+     * @return Lines read.
+     */
+    public long getLinesRead() {
+        return linesRead;
+    }
+
+    /**
+     * Returns the number of lines and records that were skipped because they could not be used.
+     *
+     * @return Records skipped.
+     */
+    public long getRecordsSkipped() {
+        return recordsSkipped;
+    }
+
+    /**
+     * Returns the skipped records, in the order they were read, up to {@link #MAX_PROBLEMS}.
+     *
+     * @return Unmodifiable list of problems.
+     */
+    public List<Problem> getProblems() {
+        return Collections.unmodifiableList(problems);
+    }
+
+    /**
+     * Returns the highest task id recorded by the data file header or by the journal's added tasks,
+     * which may belong to a task that has since been deleted.
+     *
+     * @return Last id recorded, or 0 if none was.
+     */
+    public int getLastId() {
+        return lastId;
+    }
+
+    /**
+     * Checks whether anything was skipped.
+     *
+     * @return True if at least one record was skipped.
+     */
+    public boolean hasProblems() {
+        return recordsSkipped > 0;
+    }
+}
@@ -0,0 +1,179 @@
+package sejong.storage;
+
+import java.util.List;
+
+import sejong.SejongException;
+import sejong.task.Task;
+
+/**
+ * Represents a single change to the task list that storage needs to persist.
+ * A mutation is immutable: an added task is captured in its storage format at creation time,
+ * so later changes to the task object do not leak into the recorded change.
+ */
+public class Mutation {
+    /**
+     * Kinds of change recorded by storage.
+     */
+    public enum Kind {
+        ADD("A"), MARK("M"), UNMARK("U"), DELETE("X");
+
+        private final String code;
+
+        Kind(String code) {
+            this.code = code;
+        }
+
+        /**
+         * Returns the single-letter code used for this kind in the journal.
+         *
+         * @return Journal code.
+         */
+        public String getCode() {
+            return code;
+        }
+
+        /**
+         * Returns the kind with the given journal code.
+         *
+         * @param code Journal code.
+         * @return Matching kind.
+         * @throws SejongException If the code is unknown.
+         */
+        public static Kind fromCode(String code) throws SejongException {
+            for (Kind kind : values()) {
+                if (kind.code.equals(code)) {
+                    return kind;
+                }
+            }
+            throw new SejongException("Unknown journal record: " + code);
+        }
+    }
+
+    private final Kind kind;
+    private final int index;
+    private final String taskLine;
+
+    private Mutation(Kind kind, int index, String taskLine) {
+        this.kind = kind;
+        this.index = index;
+        this.taskLine = taskLine;
+    }
+
+    /**
+     * Creates a mutation recording that a task was appended to the list.
+     *
+     * @param task Task that was added.
+     * @return Add mutation.
+     */
+    public static Mutation add(Task task) {
+        assert task != null : "Task should not be null";
+        return new Mutation(Kind.ADD, -1, TaskLineFormat.format(task));
+    }
+
+    /**
+     * Creates a mutation recording that a task was marked as done.
+     *
+     * @param index Zero-based index of the task.
+     * @return Mark mutation.
+     */
+    public static Mutation mark(int index) {
+        return new Mutation(Kind.MARK, index, null);
+    }
+
+    /**
+     * Creates a mutation recording that a task was marked as not done.
+     *
+     * @param index Zero-based index of the task.
+     * @return Unmark mutation.
+     */
+    public static Mutation unmark(int index) {
+        return new Mutation(Kind.UNMARK, index, null);
+    }
+
+    /**
+     * Creates a mutation recording that a task was deleted.
+     *
+     * @param index Zero-based index the task had before deletion.
+     * @return Delete mutation.
+     */
+    public static Mutation delete(int index) {
+        return new Mutation(Kind.DELETE, index, null);
+    }
+
+    /**
+     * Returns the kind of this mutation.
+     *
+     * @return Mutation kind.
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Returns the task index affected by this mutation, or -1 for additions.
+     *
+     * @return Zero-based task index.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Returns the journal payload of this mutation: the task line for additions, the index otherwise.
+     *
+     * @return Journal payload.
+     */
+    public String toPayload() {
+        return kind == Kind.ADD ? taskLine : String.valueOf(index);
+    }
+
+    /**
+     * Recreates a mutation from its journal code and payload.
+     *
+     * @param code    Journal code of the mutation kind.
+     * @param payload Journal payload.
+     * @return Decoded mutation.
+     * @throws SejongException If the record is malformed.
+     */
+    public static Mutation fromPayload(String code, String payload) throws SejongException {
+        Kind kind = Kind.fromCode(code);
+        if (kind == Kind.ADD) {
+            return new Mutation(kind, -1, payload);
+        }
+        try {
+            return new Mutation(kind, Integer.parseInt(payload.trim()), null);
+        } catch (NumberFormatException e) {
+            throw new SejongException("Invalid journal index: " + payload);
+        }
+    }
+
+    /**
+     * Applies this mutation to a plain list of tasks, as done when replaying the journal. Marked tasks
+     * are replaced with copies rather than changed, since the list may share them with a task list.
+     *
+     * @param tasks Tasks to modify.
+     * @throws SejongException If the mutation does not fit the list (e.g. index out of range).
+     */
+    public void applyTo(List<Task> tasks) throws SejongException {
+        if (kind == Kind.ADD) {
+            tasks.add(TaskLineFormat.parse(taskLine));
+            return;
+        }
+        if (index < 0 || index >= tasks.size()) {
+            throw new SejongException("Journal index out of range: " + index);
+        }
+        switch (kind) {
+        case MARK:
+            tasks.set(index, tasks.get(index).withDone(true));
+            break;
+        case UNMARK:
+            tasks.set(index, tasks.get(index).withDone(false));
+            break;
+        case DELETE:
+            tasks.remove(index);
+            break;
+        default:
+            throw new SejongException("Unsupported mutation: " + kind);
+        }
+    }
+}
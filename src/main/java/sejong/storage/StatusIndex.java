@@ -0,0 +1,200 @@
+package sejong.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Location of every task's record and status field in the data file, so a change to a task's
+ * completion status can be written with a single positioned write instead of rewriting the whole file.
+ * Records that carry a checksum are read back, verified, patched and re-checksummed, and the bytes from
+ * the status field to the end of the checksum are written together; records without one only have
+ * their status byte written.
+ * Status changes are recorded as dirty entries and written together by {@link #flush}.
+ * The index is only valid for the exact file it was built from; {@link #flush} refuses to patch
+ * a file whose size no longer matches.
+ */
+public class StatusIndex {
+    /** Status position marking a record whose status field cannot be patched in place. */
+    private static final int UNPATCHABLE = -1;
+
+    private boolean isBinary;
+    /** Position of the checksum within a binary record. */
+    private int binaryChecksumOffset = BinaryTaskFile.CHECKSUM_OFFSET;
+    private long[] recordStarts = new long[16];
+    /** Position of the status byte relative to the record start. */
+    private int[] statusPositions = new int[16];
+    /** Length of the record if it carries a checksum, or 0 if it does not. */
+    private int[] checkedLengths = new int[16];
+    private int size;
+    private long fileSize = -1;
+    private final BitSet dirty = new BitSet();
+    private final BitSet dirtyDone = new BitSet();
+
+    /**
+     * Creates an empty index. It is filled by {@link DataFile} while reading or writing a data file.
+     */
+    public StatusIndex() {
+    }
+
+    /**
+     * Records the format of the indexed file: an ASCII '0' or '1' in the text format (the default),
+     * or the record's flags byte in the binary format.
+     */
+    void setFormat(StorageConfig.Format format) {
+        isBinary = format == StorageConfig.Format.BINARY;
+    }
+
+    /**
+     * Records where the checksum sits in the binary records, which depends on the file's format version.
+     */
+    void setChecksumOffset(int checksumOffset) {
+        binaryChecksumOffset = checksumOffset;
+    }
+
+    /**
+     * Records the location of the next task.
+     *
+     * @param recordStart    Byte offset of the record in the file.
+     * @param statusPosition Position of the status byte within the record, or -1 if it cannot be patched.
+     * @param checkedLength  Length of the record if it carries a checksum, or 0 if it does not.
+     */
+    void add(long recordStart, int statusPosition, int checkedLength) {
+        if (size == recordStarts.length) {
+            recordStarts = Arrays.copyOf(recordStarts, size * 2);
+            statusPositions = Arrays.copyOf(statusPositions, size * 2);
+            checkedLengths = Arrays.copyOf(checkedLengths, size * 2);
+        }
+        recordStarts[size] = recordStart;
+        statusPositions[size] = statusPosition;
+        checkedLengths[size] = checkedLength;
+        size++;
+    }
+
+    /**
+     * Appends the entries of another index, as when stitching together chunks read in parallel.
+     */
+    void addAll(StatusIndex other) {
+        for (int i = 0; i < other.size; i++) {
+            add(other.recordStarts[i], other.statusPositions[i], other.checkedLengths[i]);
+        }
+    }
+
+    /**
+     * Records the size of the file the offsets belong to.
+     */
+    void setFileSize(long fileSize) {
+        this.fileSize = fileSize;
+    }
+
+    /**
+     * Returns the number of tasks in the index.
+     *
+     * @return Task count.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the status of a task can be patched in place.
+     *
+     * @param index Zero-based task index.
+     * @return True if the task is indexed and its status field is a single byte.
+     */
+    public boolean canPatch(int index) {
+        return index >= 0 && index < size && statusPositions[index] != UNPATCHABLE;
+    }
+
+    /**
+     * Records a new completion status to be written by the next {@link #flush}.
+     *
+     * @param index  Zero-based task index.
+     * @param isDone New completion status.
+     */
+    public void markDirty(int index, boolean isDone) {
+        assert canPatch(index) : "Only patchable tasks can be marked dirty";
+        dirty.set(index);
+        dirtyDone.set(index, isDone);
+    }
+
+    /**
+     * Writes every dirty status into the file with positioned writes.
+     * Nothing is written if the file has changed size since the index was built. A record whose
+     * checksum no longer matches is left alone and reported as unpatchable, so damage on disk is
+     * never hidden behind a freshly computed checksum.
+     *
+     * @param path       Data file the index was built from.
+     * @param durability How far to force the patched bytes to disk.
+     * @return True if the file was patched, false if it no longer matches the index.
+     * @throws IOException If the file cannot be read or written.
+     */
+    public boolean flush(Path path, Durability durability) throws IOException {
+        if (dirty.isEmpty()) {
+            return true;
+        }
+        if (!Files.exists(path) || Files.size(path) != fileSize) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            for (int i = dirty.nextSetBit(0); i >= 0; i = dirty.nextSetBit(i + 1)) {
+                if (!patch(channel, i, dirtyDone.get(i))) {
+                    return false;
+                }
+            }
+            durability.force(channel);
+        }
+        dirty.clear();
+        dirtyDone.clear();
+        return true;
+    }
+
+    private boolean patch(FileChannel channel, int index, boolean isDone) throws IOException {
+        byte status = isBinary
+                ? (isDone ? (byte) BinaryTaskFile.FLAG_DONE : 0)
+                : (isDone ? (byte) '1' : (byte) '0');
+        int position = statusPositions[index];
+        int length = checkedLengths[index];
+        if (length == 0) {
+            write(channel, ByteBuffer.wrap(new byte[] {status}), recordStarts[index] + position);
+            return true;
+        }
+
+        byte[] record = new byte[length];
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, recordStarts[index] + buffer.position()) < 0) {
+                return false;
+            }
+        }
+        boolean isValid = isBinary
+                ? BinaryTaskFile.hasValidChecksum(record, binaryChecksumOffset)
+                : TaskLineFormat.hasValidChecksum(record, 0, length);
+        if (!isValid) {
+            return false;
+        }
+        record[position] = status;
+        int patchEnd;
+        if (isBinary) {
+            BinaryTaskFile.writeChecksum(record, binaryChecksumOffset);
+            patchEnd = binaryChecksumOffset + 4;
+        } else {
+            TaskLineFormat.writeChecksum(record, 0, length);
+            patchEnd = length;
+        }
+        write(channel, ByteBuffer.wrap(record, position, patchEnd - position), recordStarts[index] + position);
+        return true;
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            offset += channel.write(buffer, offset);
+        }
+    }
+}
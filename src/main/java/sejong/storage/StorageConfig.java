@@ -0,0 +1,294 @@
+package sejong.storage;
+
+/**
+ * Immutable settings controlling how Storage persists tasks.
+ * Use {@link #defaults()} and the with* methods to derive a configuration.
+ */
+public class StorageConfig {
+    /** System property selecting the persistence mode ("rewrite" or "journal"). */
+    public static final String PROPERTY_MODE = "sejong.storage.mode";
+    /** System property for the journal size in bytes that triggers compaction. */
+    public static final String PROPERTY_COMPACT_BYTES = "sejong.storage.compact.bytes";
+    /** System property for the journal record count that triggers compaction. */
+    public static final String PROPERTY_COMPACT_RECORDS = "sejong.storage.compact.records";
+    /** System property for the estimated replay time in milliseconds that triggers compaction. */
+    public static final String PROPERTY_COMPACT_REPLAY_MILLIS = "sejong.storage.compact.replayMillis";
+    /** System property selecting the durability level ("none", "flush" or "fsync"). */
+    public static final String PROPERTY_DURABILITY = "sejong.storage.durability";
+    /** System property enabling write-behind persistence ("true" or "false"). */
+    public static final String PROPERTY_WRITE_BEHIND = "sejong.storage.writeBehind";
+    /** System property for the longest time in milliseconds a write-behind batch waits to fill. */
+    public static final String PROPERTY_WRITE_BEHIND_DELAY_MILLIS = "sejong.storage.writeBehind.delayMillis";
+    /** System property for the maximum number of mutations waiting to be written. */
+    public static final String PROPERTY_WRITE_BEHIND_CAPACITY = "sejong.storage.writeBehind.capacity";
+    /** System property selecting the data file format ("text" or "binary"). */
+    public static final String PROPERTY_FORMAT = "sejong.storage.format";
+    /** System property enabling parallel parsing of large data files ("true" or "false"). */
+    public static final String PROPERTY_PARALLEL_LOAD = "sejong.storage.parallelLoad";
+
+    /** Default longest time a write-behind batch waits to fill. */
+    public static final long DEFAULT_WRITE_BEHIND_DELAY_MILLIS = 50;
+    /** Default maximum number of mutations waiting to be written. */
+    public static final int DEFAULT_WRITE_BEHIND_CAPACITY = 10_000;
+
+    /**
+     * How mutations are written to disk.
+     */
+    public enum Mode {
+        /** Rewrite the whole data file after every mutation. */
+        REWRITE,
+        /** Append one journal record per mutation and replay the journal on load. */
+        JOURNAL
+    }
+
+    /**
+     * Format in which the data file is written. Either format is read regardless of this setting.
+     */
+    public enum Format {
+        /** Human-readable pipe-delimited lines. */
+        TEXT,
+        /** Versioned binary records with a random-access record table; see {@link BinaryTaskFile}. */
+        BINARY
+    }
+
+    private final Mode mode;
+    private final CompactionPolicy compactionPolicy;
+    private final Durability durability;
+    private final boolean isWriteBehind;
+    private final long writeBehindDelayMillis;
+    private final int writeBehindCapacity;
+    private final boolean isParallelLoading;
+    private final Format format;
+
+    private StorageConfig(Mode mode, CompactionPolicy compactionPolicy, Durability durability,
+                          boolean isWriteBehind, long writeBehindDelayMillis, int writeBehindCapacity,
+                          boolean isParallelLoading, Format format) {
+        assert mode != null : "Mode should not be null";
+        assert format != null : "Format should not be null";
+        assert compactionPolicy != null : "Compaction policy should not be null";
+        assert durability != null : "Durability should not be null";
+        assert writeBehindCapacity > 0 : "Write-behind capacity should be positive";
+        this.mode = mode;
+        this.compactionPolicy = compactionPolicy;
+        this.durability = durability;
+        this.isWriteBehind = isWriteBehind;
+        this.writeBehindDelayMillis = writeBehindDelayMillis;
+        this.writeBehindCapacity = writeBehindCapacity;
+        this.isParallelLoading = isParallelLoading;
+        this.format = format;
+    }
+
+    /**
+     * Returns the default configuration, which rewrites the data file on every mutation
+     * and flushes file contents to disk before replacing the old file.
+     *
+     * @return Default configuration.
+     */
+    public static StorageConfig defaults() {
+        return new StorageConfig(Mode.REWRITE, CompactionPolicy.defaults(), Durability.FLUSH,
+                false, DEFAULT_WRITE_BEHIND_DELAY_MILLIS, DEFAULT_WRITE_BEHIND_CAPACITY, false, Format.TEXT);
+    }
+
+    /**
+     * Returns the default configuration overridden by any sejong.storage.* system properties.
+     * Unrecognised values are ignored.
+     *
+     * @return Configuration read from system properties.
+     */
+    public static StorageConfig fromSystemProperties() {
+        StorageConfig config = defaults();
+        config = config.withMode(enumProperty(PROPERTY_MODE, Mode.class, config.mode));
+        config = config.withDurability(enumProperty(PROPERTY_DURABILITY, Durability.class, config.durability));
+        config = config.withFormat(enumProperty(PROPERTY_FORMAT, Format.class, config.format));
+        if (Boolean.parseBoolean(System.getProperty(PROPERTY_WRITE_BEHIND))) {
+            config = config.withWriteBehind(
+                    longProperty(PROPERTY_WRITE_BEHIND_DELAY_MILLIS, config.writeBehindDelayMillis),
+                    (int) longProperty(PROPERTY_WRITE_BEHIND_CAPACITY, config.writeBehindCapacity));
+        }
+        if (Boolean.parseBoolean(System.getProperty(PROPERTY_PARALLEL_LOAD))) {
+            config = config.withParallelLoading(true);
+        }
+        CompactionPolicy policy = config.compactionPolicy;
+        config = config.withCompactionPolicy(new CompactionPolicy(
+                longProperty(PROPERTY_COMPACT_BYTES, policy.getMaxBytes()),
+                longProperty(PROPERTY_COMPACT_RECORDS, policy.getMaxRecords()),
+                longProperty(PROPERTY_COMPACT_REPLAY_MILLIS, policy.getMaxReplayMillis())));
+        return config;
+    }
+
+    /**
+     * Returns a copy of this configuration using the given mode.
+     *
+     * @param mode Persistence mode.
+     * @return Updated configuration.
+     */
+    public StorageConfig withMode(Mode mode) {
+        return new StorageConfig(mode, compactionPolicy, durability,
+                isWriteBehind, writeBehindDelayMillis, writeBehindCapacity, isParallelLoading, format);
+    }
+
+    /**
+     * Returns a copy of this configuration using the given journal compaction thresholds.
+     *
+     * @param compactionPolicy Compaction thresholds.
+     * @return Updated configuration.
+     */
+    public StorageConfig withCompactionPolicy(CompactionPolicy compactionPolicy) {
+        return new StorageConfig(mode, compactionPolicy, durability,
+                isWriteBehind, writeBehindDelayMillis, writeBehindCapacity, isParallelLoading, format);
+    }
+
+    /**
+     * Returns a copy of this configuration using the given durability level.
+     *
+     * @param durability How far writes are forced to disk.
+     * @return Updated configuration.
+     */
+    public StorageConfig withDurability(Durability durability) {
+        return new StorageConfig(mode, compactionPolicy, durability,
+                isWriteBehind, writeBehindDelayMillis, writeBehindCapacity, isParallelLoading, format);
+    }
+
+    /**
+     * Returns a copy of this configuration that persists mutations on a background thread,
+     * batching those that arrive within the given delay into a single write.
+     *
+     * @param maxDelayMillis Longest time a mutation waits for others to join its batch.
+     * @param capacity       Maximum number of mutations waiting to be written, unless a single batch is larger.
+     * @return Updated configuration.
+     */
+    public StorageConfig withWriteBehind(long maxDelayMillis, int capacity) {
+        return new StorageConfig(mode, compactionPolicy, durability, true, maxDelayMillis, capacity,
+                isParallelLoading, format);
+    }
+
+    /**
+     * Returns a copy of this configuration that parses large data files in line-aligned chunks
+     * on the fork-join pool instead of on the loading thread alone.
+     *
+     * @param isParallelLoading Whether to load large files in parallel.
+     * @return Updated configuration.
+     */
+    public StorageConfig withParallelLoading(boolean isParallelLoading) {
+        return new StorageConfig(mode, compactionPolicy, durability,
+                isWriteBehind, writeBehindDelayMillis, writeBehindCapacity, isParallelLoading, format);
+    }
+
+    /**
+     * Returns a copy of this configuration that writes the data file in the given format.
+     * An existing file in the other format is still loaded and is converted on the next full save.
+     *
+     * @param format Data file format.
+     * @return Updated configuration.
+     */
+    public StorageConfig withFormat(Format format) {
+        return new StorageConfig(mode, compactionPolicy, durability,
+                isWriteBehind, writeBehindDelayMillis, writeBehindCapacity, isParallelLoading, format);
+    }
+
+    /**
+     * Returns the persistence mode.
+     *
+     * @return Persistence mode.
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Returns the journal compaction thresholds.
+     *
+     * @return Compaction policy.
+     */
+    public CompactionPolicy getCompactionPolicy() {
+        return compactionPolicy;
+    }
+
+    /**
+     * Returns the durability level.
+     *
+     * @return How far writes are forced to disk.
+     */
+    public Durability getDurability() {
+        return durability;
+    }
+
+    /**
+     * Checks whether mutations are persisted by a background write-behind thread.
+     *
+     * @return True if write-behind is enabled.
+     */
+    public boolean isWriteBehind() {
+        return isWriteBehind;
+    }
+
+    /**
+     * Returns the longest time a write-behind batch waits to fill.
+     *
+     * @return Delay in milliseconds.
+     */
+    public long getWriteBehindDelayMillis() {
+        return writeBehindDelayMillis;
+    }
+
+    /**
+     * Returns the maximum number of mutations waiting to be written.
+     *
+     * @return Queue capacity.
+     */
+    public int getWriteBehindCapacity() {
+        return writeBehindCapacity;
+    }
+
+    /**
+     * Returns the format the data file is written in.
+     *
+     * @return Data file format.
+     */
+    public Format getFormat() {
+        return format;
+    }
+
+    /**
+     * Checks whether large data files are parsed in parallel.
+     *
+     * @return True if parallel loading is enabled.
+     */
+    public boolean isParallelLoading() {
+        return isParallelLoading;
+    }
+
+    /**
+     * Checks whether mutations are journaled instead of rewriting the data file.
+     *
+     * @return True in journal mode, false otherwise.
+     */
+    public boolean isJournaled() {
+        return mode == Mode.JOURNAL;
+    }
+
+    private static <E extends Enum<E>> E enumProperty(String name, Class<E> type, E defaultValue) {
+        String value = System.getProperty(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        for (E candidate : type.getEnumConstants()) {
+            if (candidate.name().equalsIgnoreCase(value.trim())) {
+                return candidate;
+            }
+        }
+        return defaultValue;
+    }
+
+    private static long longProperty(String name, long defaultValue) {
+        String value = System.getProperty(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package sejong.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams the lines of a data file through a reusable byte buffer.
+ * Lines are handed out as byte ranges of the buffer instead of Strings, so a file is never held in
+ * memory as a whole and no per-line objects are created unless the handler needs them.
+ * Both '\n' and '\r' end a line; blank lines between "\r\n" pairs are reported like any other.
+ */
+public class TaskFileReader {
+    /** Initial buffer size; doubled whenever a single line does not fit. */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Receives each line of the file.
+     */
+    public interface LineHandler {
+        /**
+         * Handles one line. The buffer is reused after this call returns.
+         *
+         * @param buffer     Buffer holding the line.
+         * @param start      Index of the first byte of the line.
+         * @param end        Index just past the last byte of the line, excluding the terminator.
+         * @param fileOffset Byte offset of the line from the start of the file.
+         * @throws IOException If handling fails.
+         */
+        void onLine(byte[] buffer, int start, int end, long fileOffset) throws IOException;
+    }
+
+    /**
+     * Private constructor to prevent instantiation of utility class.
+     */
+    private TaskFileReader() {
+        throw new AssertionError("TaskFileReader is a utility class and should not be instantiated");
+    }
+
+    /**
+     * Reads the file from start to end, passing every line to the handler.
+     *
+     * @param path    File to read.
+     * @param handler Receives each line.
+     * @throws IOException If the file cannot be read.
+     */
+    public static void forEachLine(Path path, LineHandler handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            readLines(channel, 0, Long.MAX_VALUE, handler);
+        }
+    }
+
+    /**
+     * Reads the lines in a byte range of a channel. The range must start at a line boundary; a line
+     * that begins before the end of the range is read to its terminator even if it crosses the end.
+     *
+     * @param channel Channel to read from.
+     * @param from    Offset of the first byte to read.
+     * @param to      Offset at which no further lines start.
+     * @param handler Receives each line.
+     * @throws IOException If the channel cannot be read.
+     */
+    public static void readLines(FileChannel channel, long from, long to, LineHandler handler) throws IOException {
+        byte[] bytes = new byte[BUFFER_SIZE];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long position = from;
+        long lineOffset = from;
+        int lineStart = 0;
+        int scanned = 0;
+        boolean isEof = false;
+
+        while (lineOffset < to) {
+            if (scanned == buffer.position()) {
+                if (isEof) {
+                    if (lineStart < scanned) {
+                        handler.onLine(bytes, lineStart, scanned, lineOffset);
+                    }
+                    return;
+                }
+                // Move the partial line to the front (or grow the buffer) before reading more
+                if (lineStart > 0) {
+                    System.arraycopy(bytes, lineStart, bytes, 0, scanned - lineStart);
+                    scanned -= lineStart;
+                    lineStart = 0;
+                    buffer.position(scanned);
+                } else if (scanned == bytes.length) {
+                    byte[] larger = new byte[bytes.length * 2];
+                    System.arraycopy(bytes, 0, larger, 0, scanned);
+                    bytes = larger;
+                    buffer = ByteBuffer.wrap(bytes);
+                    buffer.position(scanned);
+                }
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    isEof = true;
+                } else {
+                    position += read;
+                }
+                continue;
+            }
+            byte b = bytes[scanned];
+            if (b == '\n' || b == '\r') {
+                handler.onLine(bytes, lineStart, scanned, lineOffset);
+                lineOffset += scanned - lineStart + 1;
+                lineStart = scanned + 1;
+            }
+            scanned++;
+        }
+    }
+}
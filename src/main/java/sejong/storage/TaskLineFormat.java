@@ -0,0 +1,381 @@
+package sejong.storage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.zip.CRC32C;
+
+import sejong.SejongException;
+import sejong.task.Deadline;
+import sejong.task.Event;
+import sejong.task.Task;
+import sejong.task.Todo;
+
+/**
+ * Converts tasks to and from the pipe-delimited text format used by the data file and the journal.
+ * Format: TYPE | STATUS | DESCRIPTION | [ADDITIONAL] | @ID | #CHECKSUM
+ * The id field holds the task's stable id and is omitted for tasks that have none yet.
+ * The checksum is the CRC32C of the UTF-8 bytes before " | #", as eight hex digits. Lines written
+ * before ids or checksums were introduced lack those fields and are accepted as they are.
+ */
+public class TaskLineFormat {
+    /** Delimiter used in file format. */
+    public static final String DELIMITER = " | ";
+    /** Placeholder for pipe characters inside task descriptions to avoid delimiter collision. */
+    private static final String PIPE_PLACEHOLDER = "<<<PIPE>>>";
+    /** Position of the status byte in lines written by {@link #format}. */
+    static final int STATUS_COLUMN = 1 + DELIMITER.length();
+    /** Separator between the last field of a line and its checksum. */
+    private static final String CHECKSUM_PREFIX = " | #";
+    /** Separator between the last task field of a line and its id. */
+    private static final String ID_PREFIX = " | @";
+    /** Length of the checksum field including its separator. */
+    static final int CHECKSUM_LENGTH = CHECKSUM_PREFIX.length() + 8;
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    /** Number of fields read from a line: type, status, description and up to two dates. */
+    private static final int MAX_FIELDS = 5;
+
+    /**
+     * Private constructor to prevent instantiation of utility class.
+     */
+    private TaskLineFormat() {
+        throw new AssertionError("TaskLineFormat is a utility class and should not be instantiated");
+    }
+
+    /**
+     * Parses a line from the file into a Task object.
+     *
+     * @param line Line from the file in format: TYPE | STATUS | DESCRIPTION | [ADDITIONAL]
+     * @return Parsed Task object.
+     * @throws SejongException If the line format is invalid.
+     */
+    public static Task parse(String line) throws SejongException {
+        assert line != null : "Line should not be null";
+        assert !line.isEmpty() : "Line should not be empty";
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        return parse(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Parses a UTF-8 encoded line held in a byte range into a Task object, without creating
+     * intermediate Strings for anything but the description. Fields are separated by a pipe with
+     * a whitespace character on each side and are trimmed; fields beyond those the type needs are ignored.
+     *
+     * @param bytes Buffer holding the line.
+     * @param start Index of the first byte of the line.
+     * @param end   Index just past the last byte of the line.
+     * @return Parsed Task object.
+     * @throws SejongException If the line format is invalid or its checksum does not match.
+     */
+    public static Task parse(byte[] bytes, int start, int end) throws SejongException {
+        int checksumStart = checksumStart(bytes, start, end);
+        if (checksumStart >= 0) {
+            if (checksum(bytes, start, checksumStart) != readChecksum(bytes, checksumStart)) {
+                throw new SejongException("Checksum mismatch");
+            }
+            end = checksumStart;
+        }
+        int id = 0;
+        int idStart = idStart(bytes, start, end);
+        if (idStart >= 0) {
+            id = digits(bytes, idStart + ID_PREFIX.length(), end - idStart - ID_PREFIX.length());
+            end = idStart;
+        }
+
+        // Start and end of the first five fields; only TYPE, STATUS, DESCRIPTION and dates are used
+        int[] fields = new int[MAX_FIELDS * 2];
+        int fieldCount = splitFields(bytes, start, end, fields);
+        if (fieldCount < 3) {
+            throw new SejongException("Invalid task format");
+        }
+
+        byte type = singleByteField(bytes, fields[0], fields[1]);
+        boolean isDone = singleByteField(bytes, fields[2], fields[3]) == '1';
+        if (fields[4] == fields[5]) {
+            throw new SejongException("Invalid task format");
+        }
+        String description = unescapePipes(
+                new String(bytes, fields[4], fields[5] - fields[4], StandardCharsets.UTF_8));
+
+        Task task = createTask(type, description, isDone, bytes, fields, fieldCount);
+        if (id > 0) {
+            task.setId(id);
+        }
+        return task;
+    }
+
+    private static Task createTask(byte type, String description, boolean isDone, byte[] bytes, int[] fields,
+            int fieldCount) throws SejongException {
+        switch (type) {
+        case 'T':
+            return new Todo(description, isDone);
+        case 'D':
+            if (fieldCount < 4) {
+                throw new SejongException("Invalid deadline format");
+            }
+            return new Deadline(description, parseDate(bytes, fields[6], fields[7]), isDone);
+        case 'E':
+            if (fieldCount < 5) {
+                throw new SejongException("Invalid event format");
+            }
+            LocalDate from = parseDate(bytes, fields[6], fields[7]);
+            LocalDate to = parseDate(bytes, fields[8], fields[9]);
+            return new Event(description, from, to, isDone);
+        default:
+            throw new SejongException("Unknown task type");
+        }
+    }
+
+    /**
+     * Returns the index of the " | @" separator of a line's id field, or -1 if the line has none.
+     * The id field holds at most nine digits, so it always fits in an int.
+     */
+    private static int idStart(byte[] bytes, int start, int end) {
+        int digitStart = end;
+        while (digitStart > start && end - digitStart < 9 && bytes[digitStart - 1] >= '0'
+                && bytes[digitStart - 1] <= '9') {
+            digitStart--;
+        }
+        int separator = digitStart - ID_PREFIX.length();
+        if (digitStart == end || separator < start) {
+            return -1;
+        }
+        for (int i = 0; i < ID_PREFIX.length(); i++) {
+            if (bytes[separator + i] != ID_PREFIX.charAt(i)) {
+                return -1;
+            }
+        }
+        return separator;
+    }
+
+    /**
+     * Returns the index of the " | #" separator of a line's checksum field, or -1 if the line has none.
+     *
+     * @param bytes Buffer holding the line.
+     * @param start Index of the first byte of the line.
+     * @param end   Index just past the last byte of the line.
+     * @return Index of the checksum separator within the buffer, or -1.
+     */
+    static int checksumStart(byte[] bytes, int start, int end) {
+        int separator = end - CHECKSUM_LENGTH;
+        if (separator < start) {
+            return -1;
+        }
+        for (int i = 0; i < CHECKSUM_PREFIX.length(); i++) {
+            if (bytes[separator + i] != CHECKSUM_PREFIX.charAt(i)) {
+                return -1;
+            }
+        }
+        for (int i = separator + CHECKSUM_PREFIX.length(); i < end; i++) {
+            if (Character.digit(bytes[i], 16) < 0) {
+                return -1;
+            }
+        }
+        return separator;
+    }
+
+    /**
+     * Recomputes the checksum field at the end of a line after its content has changed.
+     *
+     * @param bytes Buffer holding the line, which must end with a checksum field.
+     * @param start Index of the first byte of the line.
+     * @param end   Index just past the last byte of the line.
+     */
+    static void writeChecksum(byte[] bytes, int start, int end) {
+        int separator = end - CHECKSUM_LENGTH;
+        assert checksumStart(bytes, start, end) == separator : "Line should end with a checksum field";
+        int crc = checksum(bytes, start, separator);
+        for (int i = end - 1; i >= separator + CHECKSUM_PREFIX.length(); i--) {
+            bytes[i] = HEX_DIGITS[crc & 0xf];
+            crc >>>= 4;
+        }
+    }
+
+    /**
+     * Checks whether a line ending with a checksum field matches its checksum.
+     */
+    static boolean hasValidChecksum(byte[] bytes, int start, int end) {
+        int separator = checksumStart(bytes, start, end);
+        return separator >= 0 && checksum(bytes, start, separator) == readChecksum(bytes, separator);
+    }
+
+    private static int checksum(byte[] bytes, int start, int end) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, start, end - start);
+        return (int) crc.getValue();
+    }
+
+    private static int readChecksum(byte[] bytes, int separator) {
+        int value = 0;
+        for (int i = separator + CHECKSUM_PREFIX.length(); i < separator + CHECKSUM_LENGTH; i++) {
+            value = (value << 4) | Character.digit(bytes[i], 16);
+        }
+        return value;
+    }
+
+    /**
+     * Returns the index of the status byte of a line, or -1 if the status field is not a single byte.
+     *
+     * @param bytes Buffer holding the line.
+     * @param start Index of the first byte of the line.
+     * @param end   Index just past the last byte of the line.
+     * @return Index of the status byte within the buffer, or -1.
+     */
+    static int statusPosition(byte[] bytes, int start, int end) {
+        int delimiter = indexOfDelimiter(bytes, start, end);
+        if (delimiter == end) {
+            return -1;
+        }
+        int[] field = new int[2];
+        addTrimmedField(bytes, delimiter + 3, indexOfDelimiter(bytes, delimiter + 3, end), field, 0);
+        return field[1] - field[0] == 1 ? field[0] : -1;
+    }
+
+    /**
+     * Splits a line on " | " (any whitespace around the pipe), recording the trimmed bounds of up to
+     * {@link #MAX_FIELDS} fields as start/end pairs.
+     *
+     * @return Number of fields found, capped at MAX_FIELDS.
+     */
+    private static int splitFields(byte[] bytes, int start, int end, int[] fields) {
+        int count = 0;
+        int fieldStart = start;
+        while (count < MAX_FIELDS) {
+            int delimiter = indexOfDelimiter(bytes, fieldStart, end);
+            count = addTrimmedField(bytes, fieldStart, delimiter, fields, count);
+            if (delimiter == end) {
+                break;
+            }
+            fieldStart = delimiter + 3;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the index of the next whitespace-pipe-whitespace delimiter, or end if there is none.
+     */
+    private static int indexOfDelimiter(byte[] bytes, int from, int end) {
+        for (int i = from; i + 2 < end; i++) {
+            if (bytes[i + 1] == '|' && isWhitespace(bytes[i]) && isWhitespace(bytes[i + 2])) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    private static int addTrimmedField(byte[] bytes, int start, int end, int[] fields, int count) {
+        while (start < end && (bytes[start] & 0xff) <= ' ') {
+            start++;
+        }
+        while (end > start && (bytes[end - 1] & 0xff) <= ' ') {
+            end--;
+        }
+        fields[count * 2] = start;
+        fields[count * 2 + 1] = end;
+        return count + 1;
+    }
+
+    /**
+     * Returns the only byte of a one-character field, or 0 if the field is longer or empty.
+     */
+    private static byte singleByteField(byte[] bytes, int start, int end) {
+        return end - start == 1 ? bytes[start] : 0;
+    }
+
+    /**
+     * Parses a yyyy-MM-dd date straight from its ASCII digits. Anything not in that exact shape
+     * (such as years beyond 9999) falls back to {@link LocalDate#parse}.
+     */
+    private static LocalDate parseDate(byte[] bytes, int start, int end) throws SejongException {
+        try {
+            if (end - start == 10 && bytes[start + 4] == '-' && bytes[start + 7] == '-') {
+                int year = digits(bytes, start, 4);
+                int month = digits(bytes, start + 5, 2);
+                int day = digits(bytes, start + 8, 2);
+                if (year >= 0 && month >= 0 && day >= 0) {
+                    return LocalDate.of(year, month, day);
+                }
+            }
+            return LocalDate.parse(new String(bytes, start, end - start, StandardCharsets.UTF_8));
+        } catch (DateTimeException e) {
+            throw new SejongException("Invalid date format in storage");
+        }
+    }
+
+    /**
+     * Reads a run of ASCII digits as a number, or returns -1 if any byte is not a digit.
+     */
+    private static int digits(byte[] bytes, int start, int length) {
+        int value = 0;
+        for (int i = start; i < start + length; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Checks for the whitespace characters matched by \s in a regular expression.
+     */
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == 0x0B || b == '\f' || b == '\r';
+    }
+
+    /**
+     * Serializes a task to a storage line, escaping the description to prevent
+     * delimiter collision with pipe characters in the description text, and appends its checksum.
+     *
+     * @param task Task to serialize.
+     * @return Storage-formatted line with escaped description.
+     */
+    public static String format(Task task) {
+        String body = formatFields(task);
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        String hex = Integer.toHexString(checksum(bytes, 0, bytes.length));
+        return body + CHECKSUM_PREFIX + "00000000".substring(hex.length()) + hex;
+    }
+
+    private static String formatFields(Task task) {
+        String fields = formatTaskFields(task);
+        return task.getId() > 0 ? fields + ID_PREFIX + task.getId() : fields;
+    }
+
+    private static String formatTaskFields(Task task) {
+        String desc = escapePipes(task.getDescription());
+        String status = task.isDone() ? "1" : "0";
+
+        if (task instanceof Deadline) {
+            Deadline d = (Deadline) task;
+            return "D" + DELIMITER + status + DELIMITER + desc + DELIMITER + d.getBy();
+        }
+        if (task instanceof Event) {
+            Event e = (Event) task;
+            return "E" + DELIMITER + status + DELIMITER + desc + DELIMITER + e.getFrom() + DELIMITER + e.getTo();
+        }
+        // Todo (or any future plain-text task)
+        return "T" + DELIMITER + status + DELIMITER + desc;
+    }
+
+    /**
+     * Escapes pipe characters in a string to prevent delimiter collision in storage.
+     *
+     * @param text Text to escape.
+     * @return Text with pipe characters replaced by the placeholder.
+     */
+    private static String escapePipes(String text) {
+        return text.replace("|", PIPE_PLACEHOLDER);
+    }
+
+    /**
+     * Unescapes pipe placeholders back to pipe characters after loading from storage.
+     *
+     * @param text Text with placeholders.
+     * @return Text with original pipe characters restored.
+     */
+    private static String unescapePipes(String text) {
+        return text.replace(PIPE_PLACEHOLDER, "|");
+    }
+}
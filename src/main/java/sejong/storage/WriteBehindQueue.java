@@ -0,0 +1,258 @@
+package sejong.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import sejong.SejongException;
+
+/**
+ * Hands mutations to a dedicated persistence thread that writes them in batches.
+ * The thread waits up to the configured delay after the first pending mutation, collecting any that
+ * arrive meanwhile, and then persists the whole batch with a single write (group commit).
+ * Mutations queued together with {@link #enqueueAll} always go into the same batch, so they reach the disk
+ * in one write or not at all.
+ * The queue is bounded: when it is full, callers block until the thread catches up.
+ * <p>
+ * If a batch fails to write, the queue stays failed until a later write succeeds: every enqueue and flush
+ * reports the failure, but mutations keep being queued, and the thread keeps asking the writer to write,
+ * with an empty batch if nothing else arrives. The writer must therefore make up for the lost batch the
+ * next time it is called, for example by writing a full snapshot.
+ */
+public class WriteBehindQueue {
+    /** How often an idle persistence thread checks whether it has been closed. */
+    private static final long IDLE_POLL_MILLIS = 100;
+    /** How long a failed queue waits for new mutations before asking the writer to recover anyway. */
+    private static final long RETRY_MILLIS = 1000;
+
+    /**
+     * Persists one batch of mutations.
+     */
+    public interface BatchWriter {
+        /**
+         * Writes the batch to disk, after any batch whose write failed.
+         *
+         * @param batch Mutations in the order they were applied; empty when retrying after a failure.
+         * @throws SejongException If the batch cannot be written.
+         */
+        void write(List<Mutation> batch) throws SejongException;
+    }
+
+    /** Pending mutations, in the groups they were queued in. */
+    private final BlockingQueue<List<Mutation>> queue = new LinkedBlockingQueue<>();
+    private final int capacity;
+    private final long maxDelayMillis;
+    private final BatchWriter writer;
+    private final Thread thread;
+    /** Guards the counters and failure below, and the order of the queue; notified whenever a batch finishes. */
+    private final Object progressLock = new Object();
+    private long enqueued;
+    private long written;
+    private long batchCount;
+    /** Number of writes attempted, including retries. */
+    private long attempts;
+    /** Error of the last write if it failed, cleared once a write succeeds. */
+    private SejongException failure;
+    private volatile boolean isClosed;
+
+    /**
+     * Creates a queue and starts its persistence thread. The queue is flushed on JVM shutdown.
+     *
+     * @param capacity       Maximum number of pending mutations, unless a single group queued with
+     *                       {@link #enqueueAll} is larger.
+     * @param maxDelayMillis Longest time a mutation waits for others to join its batch.
+     * @param writer         Persists each batch.
+     */
+    public WriteBehindQueue(int capacity, long maxDelayMillis, BatchWriter writer) {
+        assert capacity > 0 : "Queue capacity should be positive";
+        assert writer != null : "Batch writer should not be null";
+        this.capacity = capacity;
+        this.maxDelayMillis = Math.max(0, maxDelayMillis);
+        this.writer = writer;
+        this.thread = new Thread(this::runLoop, "sejong-write-behind");
+        this.thread.setDaemon(true);
+        this.thread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flushQuietly, "sejong-write-behind-flush"));
+    }
+
+    /**
+     * Queues a mutation for writing, blocking while the queue is full. The mutation is queued even if
+     * the queue has failed, so that it is written once the queue recovers.
+     *
+     * @param mutation Mutation that was applied to the task list.
+     * @throws SejongException If the queue had failed and not yet recovered when called, or the wait is interrupted.
+     */
+    public void enqueue(Mutation mutation) throws SejongException {
+        enqueueAll(List.of(mutation));
+    }
+
+    /**
+     * Queues mutations for writing in the same batch, blocking while the queue is too full to take them.
+     * A group larger than the whole queue is taken once the queue is empty. The mutations are queued even if
+     * the queue has failed, so that they are written once the queue recovers.
+     *
+     * @param mutations Mutations that were applied to the task list, in order.
+     * @throws SejongException If the queue had failed and not yet recovered when called, or the wait is interrupted.
+     */
+    public void enqueueAll(List<Mutation> mutations) throws SejongException {
+        assert !isClosed : "Queue should not be used after close";
+        if (mutations.isEmpty()) {
+            return;
+        }
+        List<Mutation> group = List.copyOf(mutations);
+        SejongException earlierFailure;
+        synchronized (progressLock) {
+            earlierFailure = failure;
+            try {
+                while (enqueued > written && enqueued - written + group.size() > capacity) {
+                    progressLock.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SejongException("Interrupted while saving tasks");
+            }
+            enqueued += group.size();
+            queue.add(group);
+        }
+        if (earlierFailure != null) {
+            throw earlierFailure;
+        }
+    }
+
+    /**
+     * Waits until every mutation queued so far has been written. If the queue has failed, also waits for
+     * one more attempt to recover.
+     *
+     * @throws SejongException If the queue has failed and did not recover, or the wait is interrupted.
+     */
+    public void flush() throws SejongException {
+        synchronized (progressLock) {
+            long target = enqueued;
+            try {
+                while (written < target) {
+                    progressLock.wait();
+                }
+                if (failure != null) {
+                    long attempt = attempts;
+                    while (failure != null && attempts == attempt) {
+                        progressLock.wait();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SejongException("Interrupted while saving tasks");
+            }
+        }
+        throwIfFailed();
+    }
+
+    /**
+     * Flushes pending mutations and stops the persistence thread.
+     *
+     * @throws SejongException If a batch failed to write.
+     */
+    public void close() throws SejongException {
+        try {
+            flush();
+        } finally {
+            isClosed = true;
+        }
+    }
+
+    /**
+     * Returns the number of batches written so far.
+     *
+     * @return Batch count.
+     */
+    public long getBatchCount() {
+        synchronized (progressLock) {
+            return batchCount;
+        }
+    }
+
+    private void runLoop() {
+        while (!isClosed || !queue.isEmpty()) {
+            try {
+                boolean hasFailed = hasFailed();
+                List<Mutation> first = queue.poll(hasFailed ? RETRY_MILLIS : IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (hasFailed) {
+                        writeBatch(new ArrayList<>());
+                    }
+                    continue;
+                }
+                List<Mutation> batch = new ArrayList<>(first);
+                collectBatch(batch);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Adds mutations arriving within the delay window to the batch, taking each group queued whole.
+     */
+    private void collectBatch(List<Mutation> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        List<List<Mutation>> groups = new ArrayList<>();
+        while (true) {
+            queue.drainTo(groups);
+            for (List<Mutation> group : groups) {
+                batch.addAll(group);
+            }
+            groups.clear();
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            List<Mutation> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.addAll(next);
+        }
+    }
+
+    private void writeBatch(List<Mutation> batch) {
+        SejongException error = null;
+        try {
+            writer.write(batch);
+        } catch (SejongException | RuntimeException e) {
+            error = e instanceof SejongException ? (SejongException) e : new SejongException(e.toString());
+        }
+        synchronized (progressLock) {
+            written += batch.size();
+            if (!batch.isEmpty()) {
+                batchCount++;
+            }
+            attempts++;
+            failure = error;
+            progressLock.notifyAll();
+        }
+    }
+
+    private boolean hasFailed() {
+        synchronized (progressLock) {
+            return failure != null;
+        }
+    }
+
+    private void throwIfFailed() throws SejongException {
+        synchronized (progressLock) {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (SejongException e) {
+            // Nothing more can be done during JVM shutdown
+        }
+    }
+}
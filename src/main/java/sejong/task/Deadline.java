@@ -48,6 +48,16 @@ public class Deadline extends Task {
         this.by = by;
     }
 
+    private Deadline(Deadline deadline, boolean isDone) {
+        super(deadline, isDone);
+        this.by = deadline.by;
+    }
+
+    @Override
+    public Task withDone(boolean isDone) {
+        return new Deadline(this, isDone);
+    }
+
     /**
      * Returns the deadline date.
      *
@@ -70,6 +80,6 @@ public class Deadline extends Task {
     @Override
     public String toString() {
         String formattedDate = DateUtil.formatForDisplay(by);
-        return getTaskIcon() + getStatusIcon() + " " + getDescription() + " (by: " + formattedDate + ")";
+        return getTaskIcon() + getStatusIcon() + " " + getIdLabel() + getDescription() + " (by: " + formattedDate + ")";
     }
 }
@@ -59,6 +59,17 @@ public class Event extends Task {
         DateUtil.validateDateRange(from, to);
     }
 
+    private Event(Event event, boolean isDone) {
+        super(event, isDone);
+        this.from = event.from;
+        this.to = event.to;
+    }
+
+    @Override
+    public Task withDone(boolean isDone) {
+        return new Event(this, isDone);
+    }
+
     /**
      * Returns the start date.
      *
@@ -91,7 +102,7 @@ public class Event extends Task {
     public String toString() {
         String formattedFrom = DateUtil.formatForDisplay(from);
         String formattedTo = DateUtil.formatForDisplay(to);
-        return getTaskIcon() + getStatusIcon() + " " + getDescription()
+        return getTaskIcon() + getStatusIcon() + " " + getIdLabel() + getDescription()
                 + " (from: " + formattedFrom + " to: " + formattedTo + ")";
     }
 }
@@ -2,10 +2,15 @@ package sejong.task;
 
 /**
  * Represents a task with a description and completion status.
+ * Each task in a TaskList carries a stable positive identifier that does not change when
+ * other tasks are added or deleted; a task that has not been added anywhere yet has id 0.
+ * A TaskList never changes a task it holds: marking one replaces it with a copy from {@link #withDone},
+ * so snapshots of the list keep the statuses they were taken with.
  */
 public abstract class Task {
     private final String description;
-    private boolean isDone;
+    private final boolean isDone;
+    private int id;
 
     /**
      * Creates a task that is not done by default.
@@ -33,17 +38,43 @@ public abstract class Task {
     }
 
     /**
-     * Marks the task as done.
+     * Creates a copy of a task with the given completion status.
+     *
+     * @param task   Task to copy, keeping its description and id.
+     * @param isDone Completion status of the copy.
      */
-    public void markDone() {
-        isDone = true;
+    protected Task(Task task, boolean isDone) {
+        this.description = task.description;
+        this.id = task.id;
+        this.isDone = isDone;
     }
 
     /**
-     * Marks the task as not done.
+     * Returns a copy of this task with the given completion status, the same id and otherwise the same fields.
+     *
+     * @param isDone Completion status of the copy.
+     * @return New task.
      */
-    public void markNotDone() {
-        isDone = false;
+    public abstract Task withDone(boolean isDone);
+
+    /**
+     * Returns the stable identifier of the task.
+     *
+     * @return Positive id, or 0 if none has been assigned.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Sets the stable identifier of the task. Called by TaskList when the task is added
+     * and by storage when the task is loaded.
+     *
+     * @param id Positive id.
+     */
+    public void setId(int id) {
+        assert id > 0 : "Task id should be positive";
+        this.id = id;
     }
 
     /**
@@ -55,6 +86,15 @@ public abstract class Task {
         return description;
     }
 
+    /**
+     * Returns the label shown before the description, so users can refer to the task by id.
+     *
+     * @return Id followed by a space, such as {@code "#7 "}, or an empty string if no id is assigned.
+     */
+    public String getIdLabel() {
+        return id > 0 ? "#" + id + " " : "";
+    }
+
     /**
      * Returns the status icon for the task.
      *
@@ -89,6 +129,6 @@ public abstract class Task {
 
     @Override
     public String toString() {
-        return getTaskIcon() + getStatusIcon() + " " + getDescription();
+        return getTaskIcon() + getStatusIcon() + " " + getIdLabel() + getDescription();
     }
 }
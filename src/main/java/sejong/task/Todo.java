@@ -23,6 +23,15 @@ public class Todo extends Task {
         super(description, isDone);
     }
 
+    private Todo(Todo todo, boolean isDone) {
+        super(todo, isDone);
+    }
+
+    @Override
+    public Task withDone(boolean isDone) {
+        return new Todo(this, isDone);
+    }
+
     @Override
     public String getTaskIcon() {
         return "[T]";
@@ -0,0 +1,97 @@
+package sejong.util;
+
+import java.util.Arrays;
+
+/**
+ * Binary indexed tree over a growable array of non-negative counts, answering prefix sums and
+ * "which position holds the k-th unit" in O(log n). Used with 0/1 counts it maps between slots
+ * that may contain gaps and the dense ranks of the occupied slots.
+ */
+public class FenwickTree {
+    private static final int MIN_CAPACITY = 16;
+
+    /** One-based tree; tree[i] holds the sum of the counts in (i - lowbit(i), i]. */
+    private int[] tree = new int[MIN_CAPACITY + 1];
+    private int size;
+
+    /**
+     * Returns the number of positions.
+     *
+     * @return Number of counts appended so far.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Appends a position holding the given count.
+     *
+     * @param count Non-negative count.
+     */
+    public void append(int count) {
+        assert count >= 0 : "Counts should not be negative";
+        if (size + 1 == tree.length) {
+            tree = Arrays.copyOf(tree, tree.length * 2);
+        }
+        int node = ++size;
+        // The new node covers (node - lowbit(node), node]: its own count plus already-summed positions
+        tree[node] = count + prefixSum(node - 1) - prefixSum(node - (node & -node));
+    }
+
+    /**
+     * Adds a delta to the count at a position.
+     *
+     * @param position Zero-based position.
+     * @param delta    Amount to add; the count must stay non-negative.
+     */
+    public void add(int position, int delta) {
+        assert position >= 0 && position < size : "Position should be within bounds";
+        for (int node = position + 1; node <= size; node += node & -node) {
+            tree[node] += delta;
+        }
+    }
+
+    /**
+     * Returns the sum of the counts at the first positions.
+     *
+     * @param count Number of leading positions to sum.
+     * @return Sum of counts at positions [0, count).
+     */
+    public int prefixSum(int count) {
+        assert count >= 0 && count <= size : "Count should be within bounds";
+        int sum = 0;
+        for (int node = count; node > 0; node -= node & -node) {
+            sum += tree[node];
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the position holding the k-th unit, i.e. the smallest position whose prefix sum
+     * (including itself) reaches k.
+     *
+     * @param k One-based rank; must not exceed the total of all counts.
+     * @return Zero-based position.
+     */
+    public int select(int k) {
+        assert k > 0 && k <= prefixSum(size) : "Rank should be within bounds";
+        int node = 0;
+        int remaining = k;
+        for (int step = Integer.highestOneBit(Math.max(size, 1)); step > 0; step >>= 1) {
+            int next = node + step;
+            if (next <= size && tree[next] < remaining) {
+                node = next;
+                remaining -= tree[next];
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Removes every position.
+     */
+    public void clear() {
+        Arrays.fill(tree, 0);
+        size = 0;
+    }
+}
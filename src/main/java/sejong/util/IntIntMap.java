@@ -0,0 +1,165 @@
+package sejong.util;
+
+import java.util.Arrays;
+
+/**
+ * Hash map from positive int keys to int values, stored in two flat arrays with open addressing
+ * and linear probing, so lookups neither box keys nor allocate entries.
+ * Removal shifts later entries of the probe run back instead of leaving deletion markers.
+ */
+public class IntIntMap {
+    /** Key marking an empty bucket; keys must therefore be positive. */
+    private static final int EMPTY = 0;
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    /**
+     * Creates an empty map.
+     */
+    public IntIntMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Creates an empty map sized for the expected number of entries.
+     *
+     * @param expectedSize Number of entries to hold without resizing.
+     */
+    public IntIntMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        keys = new int[capacity];
+        values = new int[capacity];
+    }
+
+    /**
+     * Returns the value for a key.
+     *
+     * @param key          Positive key.
+     * @param defaultValue Value to return if the key is absent.
+     * @return Value for the key, or defaultValue.
+     */
+    public int get(int key, int defaultValue) {
+        assert key > 0 : "Keys should be positive";
+        int mask = keys.length - 1;
+        for (int i = hash(key) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Checks whether a key is present.
+     *
+     * @param key Positive key.
+     * @return True if the map contains the key.
+     */
+    public boolean containsKey(int key) {
+        assert key > 0 : "Keys should be positive";
+        int mask = keys.length - 1;
+        for (int i = hash(key) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Associates a value with a key, replacing any previous value.
+     *
+     * @param key   Positive key.
+     * @param value Value to store.
+     */
+    public void put(int key, int value) {
+        assert key > 0 : "Keys should be positive";
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        size++;
+    }
+
+    /**
+     * Removes a key.
+     *
+     * @param key Positive key.
+     * @return True if the key was present.
+     */
+    public boolean remove(int key) {
+        assert key > 0 : "Keys should be positive";
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (keys[i] != key) {
+            if (keys[i] == EMPTY) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        // Shift back later entries whose probe run passes through the freed bucket
+        int gap = i;
+        for (int j = (gap + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+            int home = hash(keys[j]) & mask;
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        keys[gap] = EMPTY;
+        size--;
+        return true;
+    }
+
+    /**
+     * Returns the number of entries.
+     *
+     * @return Entry count.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[capacity];
+        values = new int[capacity];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,199 @@
+package sejong.util;
+
+import java.util.List;
+
+/**
+ * Set of closed intervals [start, end], each with a unique positive id and an attached value,
+ * answering "which intervals overlap [from, to]" in O(log n + k) expected time.
+ * It is a treap ordered by (start, id) in which every node also records the largest end in its subtree,
+ * so whole subtrees that end before the query are skipped. Priorities are derived from the ids, so the
+ * shape of the tree is deterministic and no random number generator is needed.
+ *
+ * @param <T> Type of the values attached to the intervals.
+ */
+public class IntervalTree<T> {
+    private static class Node<T> {
+        private final long start;
+        private final long end;
+        private final int id;
+        private final int priority;
+        private final T value;
+        private long maxEnd;
+        private Node<T> left;
+        private Node<T> right;
+
+        private Node(long start, long end, int id, T value) {
+            this.start = start;
+            this.end = end;
+            this.id = id;
+            this.value = value;
+            this.maxEnd = end;
+            int h = id * 0x9E3779B9;
+            this.priority = h ^ (h >>> 15);
+        }
+    }
+
+    private Node<T> root;
+    private int size;
+
+    /**
+     * Returns the number of intervals.
+     *
+     * @return Interval count.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds an interval. The (start, id) pair must not already be present.
+     *
+     * @param start First point of the interval.
+     * @param end   Last point of the interval.
+     * @param id    Positive id distinguishing intervals with the same start.
+     * @param value Value returned by queries that overlap the interval.
+     */
+    public void insert(long start, long end, int id, T value) {
+        assert id > 0 : "Ids should be positive";
+        root = insert(root, new Node<>(start, end, id, value));
+        size++;
+    }
+
+    /**
+     * Removes an interval.
+     *
+     * @param start First point of the interval.
+     * @param id    Id the interval was added with.
+     * @return True if the interval was present.
+     */
+    public boolean remove(long start, int id) {
+        int before = size;
+        root = remove(root, start, id);
+        return size < before;
+    }
+
+    /**
+     * Adds the values of every interval that shares at least one point with [from, to] to a list,
+     * in order of interval start.
+     *
+     * @param from   First point of the query range.
+     * @param to     Last point of the query range.
+     * @param values List to add the values to.
+     */
+    public void collectOverlapping(long from, long to, List<? super T> values) {
+        collectOverlapping(root, from, to, values);
+    }
+
+    /**
+     * Removes every interval.
+     */
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+
+    private Node<T> insert(Node<T> node, Node<T> added) {
+        if (node == null) {
+            return added;
+        }
+        if (compare(added.start, added.id, node) < 0) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private Node<T> remove(Node<T> node, long start, int id) {
+        if (node == null) {
+            return null;
+        }
+        int comparison = compare(start, id, node);
+        if (comparison == 0) {
+            size--;
+            return merge(node.left, node.right);
+        }
+        if (comparison < 0) {
+            node.left = remove(node.left, start, id);
+        } else {
+            node.right = remove(node.right, start, id);
+        }
+        update(node);
+        return node;
+    }
+
+    /**
+     * Joins two treaps where every key in the first is smaller than every key in the second.
+     */
+    private Node<T> merge(Node<T> smaller, Node<T> larger) {
+        if (smaller == null) {
+            return larger;
+        }
+        if (larger == null) {
+            return smaller;
+        }
+        if (smaller.priority > larger.priority) {
+            smaller.right = merge(smaller.right, larger);
+            update(smaller);
+            return smaller;
+        }
+        larger.left = merge(smaller, larger.left);
+        update(larger);
+        return larger;
+    }
+
+    private void collectOverlapping(Node<T> node, long from, long to, List<? super T> values) {
+        if (node == null || node.maxEnd < from) {
+            return;
+        }
+        collectOverlapping(node.left, from, to, values);
+        // Everything to the right starts later still, so it cannot overlap once this node starts after the range
+        if (node.start <= to) {
+            if (node.end >= from) {
+                values.add(node.value);
+            }
+            collectOverlapping(node.right, from, to, values);
+        }
+    }
+
+    private Node<T> rotateRight(Node<T> node) {
+        Node<T> pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private Node<T> rotateLeft(Node<T> node) {
+        Node<T> pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static <T> void update(Node<T> node) {
+        long maxEnd = node.end;
+        if (node.left != null) {
+            maxEnd = Math.max(maxEnd, node.left.maxEnd);
+        }
+        if (node.right != null) {
+            maxEnd = Math.max(maxEnd, node.right.maxEnd);
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static <T> int compare(long start, int id, Node<T> node) {
+        int comparison = Long.compare(start, node.start);
+        return comparison != 0 ? comparison : Integer.compare(id, node.id);
+    }
+}
@@ -0,0 +1,147 @@
+package sejong.util;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Inverted index from the words of a set of texts to the ids of the texts containing them.
+ * A word is a maximal run of letters and digits; each word maps to a {@link PostingList} of ids.
+ * Texts are expected to be lowercased by the caller, as are keywords.
+ * A keyword made only of letters and digits can only occur inside words, so the texts containing it
+ * are exactly those containing a word that contains it: an exact match is a single posting list,
+ * and other words are found by scanning the vocabulary rather than the texts. The posting lists of
+ * all matching words are merged in one pass through a bitset.
+ */
+public class InvertedIndex {
+    private static final int[] NO_IDS = new int[0];
+
+    private final Map<String, PostingList> postings = new HashMap<>();
+
+    /**
+     * Indexes the words of a text under an id.
+     *
+     * @param id   Id of the text.
+     * @param text Lowercased text.
+     */
+    public void add(int id, String text) {
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean isWordChar = i < text.length() && isWordChar(text.charAt(i));
+            if (isWordChar && start < 0) {
+                start = i;
+            } else if (!isWordChar && start >= 0) {
+                postings.computeIfAbsent(text.substring(start, i), word -> new PostingList()).add(id);
+                start = -1;
+            }
+        }
+    }
+
+    /**
+     * Removes an id from the posting lists of the words of a text.
+     *
+     * @param id   Id the text was indexed under.
+     * @param text The same lowercased text.
+     */
+    public void remove(int id, String text) {
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean isWordChar = i < text.length() && isWordChar(text.charAt(i));
+            if (isWordChar && start < 0) {
+                start = i;
+            } else if (!isWordChar && start >= 0) {
+                String word = text.substring(start, i);
+                PostingList posting = postings.get(word);
+                if (posting != null) {
+                    posting.remove(id);
+                    if (posting.size() == 0) {
+                        postings.remove(word);
+                    }
+                }
+                start = -1;
+            }
+        }
+    }
+
+    /**
+     * Checks whether a keyword can be answered from the index, i.e. it is made only of word characters.
+     *
+     * @param keyword Lowercased keyword.
+     * @return True if {@link #find} can answer the keyword.
+     */
+    public static boolean canFind(String keyword) {
+        if (keyword.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < keyword.length(); i++) {
+            if (!isWordChar(keyword.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the ids of the texts containing a keyword anywhere, whether as a whole word or inside one.
+     *
+     * @param keyword Lowercased keyword accepted by {@link #canFind}.
+     * @return Sorted ids.
+     */
+    public int[] find(String keyword) {
+        assert canFind(keyword) : "Keyword should consist of word characters";
+        BitSet ids = new BitSet();
+        for (Map.Entry<String, PostingList> entry : postings.entrySet()) {
+            if (entry.getKey().contains(keyword)) {
+                entry.getValue().addTo(ids);
+            }
+        }
+        return ids.stream().toArray();
+    }
+
+    /**
+     * Returns an upper bound on the number of texts containing a keyword: the total size of the
+     * posting lists {@link #find} would merge. Only the vocabulary is scanned, and the scan stops
+     * once the bound passes a limit.
+     *
+     * @param keyword Lowercased keyword accepted by {@link #canFind}.
+     * @param limit   Bound beyond which the exact count does not matter.
+     * @return Upper bound on the number of texts, or a number greater than limit.
+     */
+    public int estimateCandidates(String keyword, int limit) {
+        assert canFind(keyword) : "Keyword should consist of word characters";
+        long estimate = 0;
+        for (Map.Entry<String, PostingList> entry : postings.entrySet()) {
+            if (entry.getKey().contains(keyword)) {
+                estimate += entry.getValue().size();
+                if (estimate > limit) {
+                    break;
+                }
+            }
+        }
+        return (int) Math.min(estimate, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the ids of the texts containing a keyword as a whole word.
+     *
+     * @param word Lowercased word.
+     * @return Sorted ids.
+     */
+    public int[] findWord(String word) {
+        PostingList posting = postings.get(word);
+        return posting == null ? NO_IDS : posting.toArray();
+    }
+
+    /**
+     * Returns the number of distinct words indexed.
+     *
+     * @return Vocabulary size.
+     */
+    public int vocabularySize() {
+        return postings.size();
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c);
+    }
+}
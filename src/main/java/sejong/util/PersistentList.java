@@ -0,0 +1,266 @@
+package sejong.util;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * List whose elements are kept in an immutable treap ordered by position, so that {@link #snapshot}
+ * is O(1) and a snapshot never sees later changes to the list it was taken from, or vice versa.
+ * Every change copies only the O(log n) expected nodes on its path and shares the rest of the tree,
+ * and positional reads and writes take O(log n) expected time. A list of known elements is built in
+ * one O(n) pass rather than by n appends.
+ *
+ * @param <T> Type of the elements.
+ */
+public class PersistentList<T> extends AbstractList<T> {
+    private static final class Node<T> {
+        private final T value;
+        private final Node<T> left;
+        private final Node<T> right;
+        private final int priority;
+        private final int size;
+
+        private Node(T value, Node<T> left, Node<T> right, int priority) {
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.priority = priority;
+            this.size = 1 + size(left) + size(right);
+        }
+    }
+
+    /** The two trees a split produces: the first elements, and the rest. */
+    private static final class Halves<T> {
+        private final Node<T> first;
+        private final Node<T> second;
+
+        private Halves(Node<T> first, Node<T> second) {
+            this.first = first;
+            this.second = second;
+        }
+    }
+
+    private Node<T> root;
+
+    /**
+     * Creates an empty list.
+     */
+    public PersistentList() {
+    }
+
+    /**
+     * Creates a list holding the given elements in order, in O(n) time. The elements get random
+     * priorities and are arranged into the treap those priorities define with a single left-to-right
+     * pass, so no intermediate versions of the tree are built.
+     *
+     * @param elements Elements in list order.
+     */
+    public PersistentList(List<? extends T> elements) {
+        int count = elements.size();
+        if (count == 0) {
+            return;
+        }
+        int[] priorities = new int[count];
+        int[] lefts = new int[count];
+        int[] rights = new int[count];
+        int[] spine = new int[count];
+        int spineSize = 0;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < count; i++) {
+            priorities[i] = random.nextInt();
+            rights[i] = -1;
+            // Elements on the right spine with a lower priority than the new one become its left subtree
+            int last = -1;
+            while (spineSize > 0 && priorities[spine[spineSize - 1]] < priorities[i]) {
+                last = spine[--spineSize];
+            }
+            lefts[i] = last;
+            if (spineSize > 0) {
+                rights[spine[spineSize - 1]] = i;
+            }
+            spine[spineSize++] = i;
+        }
+        Object[] values = elements.toArray();
+        root = build(spine[0], values, priorities, lefts, rights);
+    }
+
+    private PersistentList(Node<T> root) {
+        this.root = root;
+    }
+
+    /**
+     * Creates the nodes of the subtree rooted at an element, children first. The treap is balanced
+     * with high probability, so the recursion stays shallow.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Node<T> build(int index, Object[] values, int[] priorities, int[] lefts, int[] rights) {
+        if (index < 0) {
+            return null;
+        }
+        Node<T> left = build(lefts[index], values, priorities, lefts, rights);
+        Node<T> right = build(rights[index], values, priorities, lefts, rights);
+        return new Node<>((T) values[index], left, right, priorities[index]);
+    }
+
+    /**
+     * Returns a list with the same elements that shares this list's nodes. Changes to either list
+     * afterwards are not seen by the other.
+     *
+     * @return Independent list with the current elements.
+     */
+    public PersistentList<T> snapshot() {
+        return new PersistentList<>(root);
+    }
+
+    @Override
+    public int size() {
+        return size(root);
+    }
+
+    @Override
+    public T get(int index) {
+        Objects.checkIndex(index, size());
+        Node<T> node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node.value;
+            }
+        }
+    }
+
+    @Override
+    public T set(int index, T value) {
+        T previous = get(index);
+        root = replace(root, index, value);
+        return previous;
+    }
+
+    @Override
+    public void add(int index, T value) {
+        if (index < 0 || index > size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size());
+        }
+        Halves<T> parts = split(root, index);
+        Node<T> added = new Node<>(value, null, null, ThreadLocalRandom.current().nextInt());
+        root = merge(merge(parts.first, added), parts.second);
+        modCount++;
+    }
+
+    @Override
+    public T remove(int index) {
+        T removed = get(index);
+        root = remove(root, index);
+        modCount++;
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        root = null;
+        modCount++;
+    }
+
+    /**
+     * Returns an iterator that walks the tree in order, in O(1) amortized time per element.
+     * The iterator does not support removal.
+     *
+     * @return Iterator over the elements in order.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        Deque<Node<T>> path = new ArrayDeque<>();
+        pushLeftSpine(path, root);
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !path.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                if (path.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                Node<T> node = path.pop();
+                pushLeftSpine(path, node.right);
+                return node.value;
+            }
+        };
+    }
+
+    private static <T> void pushLeftSpine(Deque<Node<T>> path, Node<T> node) {
+        for (; node != null; node = node.left) {
+            path.push(node);
+        }
+    }
+
+    private static <T> Node<T> replace(Node<T> node, int index, T value) {
+        int leftSize = size(node.left);
+        if (index < leftSize) {
+            return new Node<>(node.value, replace(node.left, index, value), node.right, node.priority);
+        }
+        if (index > leftSize) {
+            return new Node<>(node.value, node.left, replace(node.right, index - leftSize - 1, value), node.priority);
+        }
+        return new Node<>(value, node.left, node.right, node.priority);
+    }
+
+    private static <T> Node<T> remove(Node<T> node, int index) {
+        int leftSize = size(node.left);
+        if (index < leftSize) {
+            return new Node<>(node.value, remove(node.left, index), node.right, node.priority);
+        }
+        if (index > leftSize) {
+            return new Node<>(node.value, node.left, remove(node.right, index - leftSize - 1), node.priority);
+        }
+        return merge(node.left, node.right);
+    }
+
+    /**
+     * Splits a tree into its first {@code count} elements and the rest, copying the nodes on the split path.
+     */
+    private static <T> Halves<T> split(Node<T> node, int count) {
+        if (node == null) {
+            return new Halves<>(null, null);
+        }
+        int leftSize = size(node.left);
+        if (count <= leftSize) {
+            Halves<T> parts = split(node.left, count);
+            return new Halves<>(parts.first, new Node<>(node.value, parts.second, node.right, node.priority));
+        }
+        Halves<T> parts = split(node.right, count - leftSize - 1);
+        return new Halves<>(new Node<>(node.value, node.left, parts.first, node.priority), parts.second);
+    }
+
+    /**
+     * Joins two trees, all of whose elements in the first come before those in the second.
+     */
+    private static <T> Node<T> merge(Node<T> first, Node<T> second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        if (first.priority > second.priority) {
+            return new Node<>(first.value, first.left, merge(first.right, second), first.priority);
+        }
+        return new Node<>(second.value, merge(first, second.left), second.right, second.priority);
+    }
+
+    private static <T> int size(Node<T> node) {
+        return node == null ? 0 : node.size;
+    }
+}
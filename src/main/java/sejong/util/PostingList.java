@@ -0,0 +1,136 @@
+package sejong.util;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Sorted, duplicate-free list of int ids, as kept for each term of an inverted index.
+ * Ids are normally added in increasing order, which appends in O(1); out-of-order ids are inserted.
+ */
+public class PostingList {
+    /** Size ratio beyond which intersecting probes the larger list by binary search instead of merging. */
+    private static final int GALLOP_RATIO = 16;
+
+    private int[] ids = new int[2];
+    private int size;
+
+    /**
+     * Adds an id if it is not already present.
+     *
+     * @param id Id to add.
+     */
+    public void add(int id) {
+        int position = size;
+        if (size > 0 && ids[size - 1] >= id) {
+            position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                return;
+            }
+            position = -position - 1;
+        }
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        System.arraycopy(ids, position, ids, position + 1, size - position);
+        ids[position] = id;
+        size++;
+    }
+
+    /**
+     * Removes an id if it is present.
+     *
+     * @param id Id to remove.
+     */
+    public void remove(int id) {
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position >= 0) {
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+        }
+    }
+
+    /**
+     * Returns the number of ids.
+     *
+     * @return Id count.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a copy of the ids.
+     *
+     * @return Sorted ids.
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    /**
+     * Keeps only the ids that are also in this list. When the given ids are far fewer than this list,
+     * each is looked up by binary search, so the cost depends on the smaller side.
+     *
+     * @param candidates Sorted ids.
+     * @return Sorted ids present in both.
+     */
+    public int[] retainIn(int[] candidates) {
+        if ((long) candidates.length * GALLOP_RATIO < size) {
+            int[] result = new int[candidates.length];
+            int count = 0;
+            int from = 0;
+            for (int candidate : candidates) {
+                int position = Arrays.binarySearch(ids, from, size, candidate);
+                if (position >= 0) {
+                    result[count++] = candidate;
+                    from = position + 1;
+                } else {
+                    from = -position - 1;
+                }
+            }
+            return Arrays.copyOf(result, count);
+        }
+        return intersect(candidates, candidates.length, ids, size);
+    }
+
+    /**
+     * Intersects two sorted id arrays.
+     *
+     * @param a Sorted ids.
+     * @param b Sorted ids.
+     * @return Sorted ids present in both.
+     */
+    public static int[] intersect(int[] a, int[] b) {
+        return intersect(a, a.length, b, b.length);
+    }
+
+    /**
+     * Sets the bit of every id in this list.
+     *
+     * @param bits Bitset indexed by id.
+     */
+    public void addTo(BitSet bits) {
+        for (int i = 0; i < size; i++) {
+            bits.set(ids[i]);
+        }
+    }
+
+    private static int[] intersect(int[] a, int aSize, int[] b, int bSize) {
+        int[] result = new int[Math.min(aSize, bSize)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < aSize && j < bSize) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+}
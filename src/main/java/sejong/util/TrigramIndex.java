@@ -0,0 +1,123 @@
+package sejong.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index from every run of three consecutive characters (trigram) of a set of texts to the ids of the
+ * texts containing it. Any text containing a keyword of three or more characters contains all of the
+ * keyword's trigrams, so intersecting their posting lists gives a small superset of the matches on
+ * which an exact {@code contains} check can then run. Texts and keywords are expected to be lowercased
+ * by the caller.
+ */
+public class TrigramIndex {
+    /** Length of the character runs indexed. */
+    public static final int GRAM_LENGTH = 3;
+
+    private static final int[] NO_IDS = new int[0];
+
+    private final Map<Long, PostingList> postings = new HashMap<>();
+
+    /**
+     * Indexes the trigrams of a text under an id.
+     *
+     * @param id   Id of the text.
+     * @param text Lowercased text.
+     */
+    public void add(int id, String text) {
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            postings.computeIfAbsent(trigram(text, i), key -> new PostingList()).add(id);
+        }
+    }
+
+    /**
+     * Removes an id from the posting lists of the trigrams of a text.
+     *
+     * @param id   Id the text was indexed under.
+     * @param text The same lowercased text.
+     */
+    public void remove(int id, String text) {
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            Long key = trigram(text, i);
+            PostingList posting = postings.get(key);
+            if (posting != null) {
+                posting.remove(id);
+                if (posting.size() == 0) {
+                    postings.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks whether a keyword is long enough to have trigrams.
+     *
+     * @param keyword Lowercased keyword.
+     * @return True if {@link #findCandidates} can narrow down the texts for the keyword.
+     */
+    public static boolean canFind(String keyword) {
+        return keyword.length() >= GRAM_LENGTH;
+    }
+
+    /**
+     * Returns the ids of the texts containing every trigram of a keyword, intersecting the posting
+     * lists from the shortest up. Every text containing the keyword is included, but so may be a few
+     * that contain the trigrams elsewhere, so the caller must still check each candidate.
+     *
+     * @param keyword Lowercased keyword accepted by {@link #canFind}.
+     * @return Sorted candidate ids.
+     */
+    public int[] findCandidates(String keyword) {
+        assert canFind(keyword) : "Keyword should be at least three characters long";
+        List<PostingList> lists = new ArrayList<>();
+        for (int i = 0; i + GRAM_LENGTH <= keyword.length(); i++) {
+            PostingList posting = postings.get(trigram(keyword, i));
+            if (posting == null) {
+                return NO_IDS;
+            }
+            lists.add(posting);
+        }
+        lists.sort(Comparator.comparingInt(PostingList::size));
+        int[] candidates = lists.get(0).toArray();
+        for (int i = 1; i < lists.size() && candidates.length > 0; i++) {
+            candidates = lists.get(i).retainIn(candidates);
+        }
+        return candidates;
+    }
+
+    /**
+     * Estimates how many candidates {@link #findCandidates} returns for a keyword, as the length of its
+     * shortest posting list, which bounds the result from above.
+     *
+     * @param keyword Lowercased keyword accepted by {@link #canFind}.
+     * @return Upper bound on the number of candidates.
+     */
+    public int estimateCandidates(String keyword) {
+        assert canFind(keyword) : "Keyword should be at least three characters long";
+        int estimate = Integer.MAX_VALUE;
+        for (int i = 0; i + GRAM_LENGTH <= keyword.length(); i++) {
+            PostingList posting = postings.get(trigram(keyword, i));
+            if (posting == null) {
+                return 0;
+            }
+            estimate = Math.min(estimate, posting.size());
+        }
+        return estimate;
+    }
+
+    /**
+     * Returns the number of distinct trigrams indexed.
+     *
+     * @return Trigram count.
+     */
+    public int trigramCount() {
+        return postings.size();
+    }
+
+    private static Long trigram(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+}
@@ -2,21 +2,27 @@ package sejong;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.time.LocalDate;
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
 
+import sejong.command.BeginCommand;
 import sejong.command.ByeCommand;
 import sejong.command.Command;
+import sejong.command.CommitCommand;
 import sejong.command.DeadlineCommand;
 import sejong.command.DeleteCommand;
 import sejong.command.EventCommand;
+import sejong.command.ExplainCommand;
 import sejong.command.FindCommand;
 import sejong.command.ListCommand;
 import sejong.command.MarkCommand;
+import sejong.command.RollbackCommand;
 import sejong.command.TodoCommand;
 import sejong.command.UnmarkCommand;
 
@@ -57,6 +63,31 @@ public class ParserTest {
         assertEquals("OOPS!!! Please provide a valid task number.", exception.getMessage());
     }
 
+    @Test
+    public void parseTaskSelector_idOrIndex_success() throws SejongException {
+        TaskSelector byId = Parser.parseTaskSelector("mark #17");
+        assertTrue(byId.isById());
+        assertEquals(17, byId.getValue());
+
+        TaskSelector byIndex = Parser.parseTaskSelector("delete 3");
+        assertFalse(byIndex.isById());
+        assertEquals(2, byIndex.getValue());
+    }
+
+    @Test
+    public void parseTaskSelector_invalidId_throwsException() {
+        assertThrows(SejongException.class, () -> Parser.parseTaskSelector("mark #"));
+        assertThrows(SejongException.class, () -> Parser.parseTaskSelector("mark #0"));
+        assertThrows(SejongException.class, () -> Parser.parseTaskSelector("mark #abc"));
+    }
+
+    @Test
+    public void parse_explainFind_returnsExplainCommand() throws SejongException {
+        assertTrue(Parser.parse("explain find book /status done") instanceof ExplainCommand);
+        assertEquals(List.of("book"), Parser.parseExplainCommand("explain find book").getKeywords());
+        assertThrows(SejongException.class, () -> Parser.parse("explain list"));
+    }
+
     @Test
     public void parseTaskIndex_extraSpaces_success() throws SejongException {
         assertEquals(2, Parser.parseTaskIndex("mark   3"));
@@ -302,6 +333,13 @@ public class ParserTest {
         assertTrue(command instanceof ListCommand);
     }
 
+    @Test
+    public void parse_transactionCommands_returnsCorrectCommands() throws SejongException {
+        assertTrue(Parser.parse("begin") instanceof BeginCommand);
+        assertTrue(Parser.parse("commit") instanceof CommitCommand);
+        assertTrue(Parser.parse("rollback") instanceof RollbackCommand);
+    }
+
     @Test
     public void parse_markCommand_returnsCorrectCommand() throws SejongException {
         Command command = Parser.parse("mark 1");
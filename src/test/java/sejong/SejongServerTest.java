@@ -0,0 +1,146 @@
+package sejong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for SejongServer, talking to it over the loopback address.
+ */
+public class SejongServerTest {
+    @TempDir
+    Path tempDir;
+
+    private SejongServer server;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        Sejong sejong = new Sejong(tempDir.resolve("tasks.txt").toString(), new StringBuilder());
+        server = new SejongServer(sejong, 0);
+        server.start();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    @Test
+    public void send_linesStartingWithDot_areStuffedAndReadBack() throws IOException {
+        StringWriter out = new StringWriter();
+        SejongServer.send(out, ".hidden\n.\nplain\n");
+
+        assertEquals("..hidden\n..\nplain\n.\n", out.toString());
+        BufferedReader in = new BufferedReader(new StringReader(out.toString()));
+        assertEquals(List.of(".hidden", ".", "plain"), readResponse(in));
+    }
+
+    @Test
+    public void serve_concurrentClients_seeEachOthersChanges() throws Exception {
+        int clientCount = 4;
+        ExecutorService pool = Executors.newFixedThreadPool(clientCount);
+        List<Client> clients = new ArrayList<>();
+        try {
+            for (int i = 0; i < clientCount; i++) {
+                clients.add(new Client(server.getPort()));
+            }
+            List<Future<List<String>>> added = new ArrayList<>();
+            for (int i = 0; i < clientCount; i++) {
+                Client client = clients.get(i);
+                String command = "todo shared chore " + i;
+                added.add(pool.submit(() -> client.send(command)));
+            }
+            for (Future<List<String>> response : added) {
+                assertTrue(String.join("\n", response.get()).contains("Got it."));
+            }
+
+            for (Client client : clients) {
+                String listing = String.join("\n", client.send("list"));
+                for (int i = 0; i < clientCount; i++) {
+                    assertTrue(listing.contains("shared chore " + i), listing);
+                }
+            }
+        } finally {
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+            for (Client client : clients) {
+                client.close();
+            }
+        }
+    }
+
+    @Test
+    public void serve_bye_closesOnlyThatClient() throws IOException {
+        try (Client leaving = new Client(server.getPort());
+             Client staying = new Client(server.getPort())) {
+            assertTrue(String.join("\n", leaving.send("bye")).contains("Bye"));
+            assertNull(leaving.in.readLine());
+
+            assertTrue(String.join("\n", staying.send("todo after bye")).contains("after bye"));
+            assertTrue(String.join("\n", staying.send("list")).contains("after bye"));
+        }
+    }
+
+    /**
+     * Reads one response up to the line holding a single dot, removing the dot stuffing.
+     */
+    private static List<String> readResponse(BufferedReader in) throws IOException {
+        List<String> lines = new ArrayList<>();
+        String line;
+        while ((line = in.readLine()) != null && !line.equals(".")) {
+            lines.add(line.startsWith(".") ? line.substring(1) : line);
+        }
+        assertTrue(line != null, "Response should end with a dot line");
+        return lines;
+    }
+
+    /**
+     * One client connection, greeted on opening.
+     */
+    private static final class Client implements AutoCloseable {
+        private final Socket socket;
+        private final BufferedReader in;
+        private final Writer out;
+
+        private Client(int port) throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            assertTrue(String.join("\n", readResponse(in)).contains("Hello"));
+        }
+
+        private List<String> send(String command) throws IOException {
+            out.write(command + "\n");
+            out.flush();
+            return readResponse(in);
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
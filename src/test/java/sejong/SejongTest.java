@@ -0,0 +1,85 @@
+package sejong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import sejong.task.Task;
+
+/**
+ * Tests for Sejong, comparing batch runs with the interactive run.
+ */
+public class SejongTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void runBatch_scriptLongerThanOneChunk_matchesInteractiveRun() throws Exception {
+        StringBuilder script = new StringBuilder();
+        for (int i = 0; i < 1500; i++) {
+            script.append("todo chore ").append(i).append('\n');
+            script.append(i % 2 == 0 ? "mark 1\n" : "deadline missing by\n");
+            script.append(i % 3 == 0 ? "delete 1\n" : "delete 99999\n");
+        }
+        script.append("deadline return book /by 2019-12-01\n")
+                .append("event orientation /from 2019-10-04 /to 2019-10-11\n")
+                .append("find chore 14\n")
+                .append("list\n")
+                .append("bye\n")
+                .append("todo after bye\n");
+
+        Path batchFile = tempDir.resolve("batch.txt");
+        StringWriter batchOut = new StringWriter();
+        new Sejong(batchFile.toString(), new StringBuilder())
+                .runBatch(new BufferedReader(new StringReader(script.toString())), batchOut);
+
+        Path interactiveFile = tempDir.resolve("interactive.txt");
+        String interactiveOut = runInteractively(interactiveFile, script.toString());
+
+        assertTrue(interactiveOut.contains("Bye"), interactiveOut);
+        assertEquals(interactiveOut, batchOut.toString());
+        List<String> batchTasks = reload(batchFile);
+        assertEquals(1000 + 2, batchTasks.size());
+        assertEquals(reload(interactiveFile), batchTasks);
+    }
+
+    /**
+     * Runs the script through {@link Sejong#run} on a console whose input and output are swapped out.
+     */
+    private static String runInteractively(Path file, String script) {
+        InputStream originalIn = System.in;
+        PrintStream originalOut = System.out;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            System.setIn(new ByteArrayInputStream(script.getBytes(StandardCharsets.UTF_8)));
+            System.setOut(new PrintStream(out, true, StandardCharsets.UTF_8));
+            new Sejong(file.toString()).run();
+        } finally {
+            System.setIn(originalIn);
+            System.setOut(originalOut);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> reload(Path file) throws SejongException {
+        List<String> tasks = new ArrayList<>();
+        for (Task task : new Storage(file.toString()).loadTasks()) {
+            tasks.add(task.getIdLabel() + " " + task);
+        }
+        return tasks;
+    }
+}
@@ -0,0 +1,671 @@
+package sejong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import sejong.storage.BinaryTaskFile;
+import sejong.storage.BinaryTaskReader;
+import sejong.storage.CompactionPolicy;
+import sejong.storage.DataFile;
+import sejong.storage.Durability;
+import sejong.storage.LoadReport;
+import sejong.storage.Mutation;
+import sejong.storage.StorageConfig;
+import sejong.task.Deadline;
+import sejong.task.Event;
+import sejong.task.Task;
+import sejong.task.Todo;
+
+/**
+ * Test class for Storage.
+ * Tests saving and loading tasks in rewrite and journal modes.
+ */
+public class StorageTest {
+    @TempDir
+    Path tempDir;
+
+    private String dataFile() {
+        return tempDir.resolve("sejong.txt").toString();
+    }
+
+    @Test
+    public void saveTasks_thenLoad_roundTrips() throws SejongException {
+        Storage storage = new Storage(dataFile());
+        TaskList tasks = new TaskList(new Todo("read | book"), new Deadline("return book", "2024-12-31", true));
+        storage.saveTasks(tasks.getTasks());
+
+        List<Task> loaded = new Storage(dataFile()).loadTasks();
+        assertEquals(2, loaded.size());
+        assertEquals("read | book", loaded.get(0).getDescription());
+        assertTrue(loaded.get(1).isDone());
+    }
+
+    @Test
+    public void save_journalMode_appendsWithoutRewritingDataFile() throws Exception {
+        StorageConfig config = StorageConfig.defaults().withMode(StorageConfig.Mode.JOURNAL);
+        Storage storage = new Storage(dataFile(), config);
+        TaskList tasks = new TaskList(storage.loadTasks());
+
+        Task first = new Todo("read book");
+        tasks.addTask(first);
+        storage.save(tasks, Mutation.add(first));
+        Task second = new Todo("write essay");
+        tasks.addTask(second);
+        storage.save(tasks, Mutation.add(second));
+        tasks.markTask(1);
+        storage.save(tasks, Mutation.mark(1));
+        tasks.deleteTask(0);
+        storage.save(tasks, Mutation.delete(0));
+
+        assertFalse(Files.exists(Path.of(dataFile())));
+        List<Task> loaded = new Storage(dataFile(), config).loadTasks();
+        assertEquals(1, loaded.size());
+        assertEquals("write essay", loaded.get(0).getDescription());
+        assertTrue(loaded.get(0).isDone());
+    }
+
+    @Test
+    public void loadTasks_corruptJournalRecordInMiddle_stopsReplayAndTruncates() throws Exception {
+        StorageConfig config = StorageConfig.defaults().withMode(StorageConfig.Mode.JOURNAL);
+        Storage storage = new Storage(dataFile(), config);
+        TaskList tasks = new TaskList(storage.loadTasks());
+        for (String description : List.of("read book", "write essay")) {
+            Task task = new Todo(description);
+            tasks.addTask(task);
+            storage.save(tasks, Mutation.add(task));
+        }
+        tasks.deleteTask(0);
+        storage.save(tasks, Mutation.delete(0));
+        tasks.markTask(0);
+        storage.save(tasks, Mutation.mark(0));
+        Path journal = Path.of(dataFile() + ".journal");
+        List<String> records = Files.readAllLines(journal);
+        String separator = System.lineSeparator();
+        long corruptOffset = (records.get(0) + separator + records.get(1) + separator).length();
+        // Lose the delete, after which the mark would land on "read book" instead of "write essay"
+        records.set(2, records.get(2).replace(" | X | ", " | ? | "));
+        Files.write(journal, records);
+
+        LoadReport report = new LoadReport();
+        storage = new Storage(dataFile(), config);
+        List<Task> loaded = storage.loadTasks(report);
+
+        assertEquals(2, loaded.size());
+        assertFalse(loaded.get(0).isDone());
+        assertFalse(loaded.get(1).isDone());
+        assertEquals(1, report.getRecordsSkipped());
+        assertEquals(corruptOffset, report.getProblems().get(0).getOffset());
+        assertEquals(corruptOffset, Files.size(journal));
+
+        tasks = new TaskList(loaded);
+        tasks.markTask(1);
+        storage.save(tasks, Mutation.mark(1));
+        List<Task> reloaded = new Storage(dataFile(), config).loadTasks();
+        assertFalse(reloaded.get(0).isDone());
+        assertTrue(reloaded.get(1).isDone());
+    }
+
+    @Test
+    public void saveTasks_afterJournal_doesNotReplayJournalTwice() throws Exception {
+        StorageConfig config = StorageConfig.defaults().withMode(StorageConfig.Mode.JOURNAL);
+        Storage storage = new Storage(dataFile(), config);
+        TaskList tasks = new TaskList(storage.loadTasks());
+        Task task = new Todo("read book");
+        tasks.addTask(task);
+        storage.save(tasks, Mutation.add(task));
+        Path journal = Path.of(dataFile() + ".journal");
+        byte[] journalBytes = Files.readAllBytes(journal);
+
+        storage.saveTasks(tasks.getTasks());
+        // Simulate a crash between writing the data file and clearing the journal
+        Files.write(journal, journalBytes);
+
+        assertEquals(1, new Storage(dataFile(), config).loadTasks().size());
+    }
+
+    @Test
+    public void save_journalPastThreshold_compactsInBackground() throws Exception {
+        StorageConfig config = StorageConfig.defaults().withMode(StorageConfig.Mode.JOURNAL)
+                .withCompactionPolicy(new CompactionPolicy(0, 3, 0));
+        Storage storage = new Storage(dataFile(), config);
+        TaskList tasks = new TaskList(storage.loadTasks());
+        for (int i = 0; i < 3; i++) {
+            Task task = new Todo("task " + i);
+            tasks.addTask(task);
+            storage.save(tasks, Mutation.add(task));
+        }
+        storage.awaitCompaction();
+        tasks.markTask(2);
+        storage.save(tasks, Mutation.mark(2));
+
+        List<String> journalLines = Files.readAllLines(Path.of(dataFile() + ".journal"));
+        assertEquals(1, journalLines.size());
+        List<Task> loaded = new Storage(dataFile(), config).loadTasks();
+        assertEquals(3, loaded.size());
+        assertTrue(loaded.get(2).isDone());
+    }
+
+    @Test
+    public void loadTasks_leftoverSnapshotTempFile_ignored() throws Exception {
+        StorageConfig config = StorageConfig.defaults().withMode(StorageConfig.Mode.JOURNAL);
+        Storage storage = new Storage(dataFile(), config);
+        TaskList tasks = new TaskList(storage.loadTasks());
+        Task task = new Todo("read book");
+        tasks.addTask(task);
+        storage.save(tasks, Mutation.add(task));
+        // Simulate a compaction killed while writing its snapshot
+        Files.writeString(Path.of(dataFile() + ".tmp"), "# sequence 1\nT | 0 | half");
+
+        List<Task> loaded = new Storage(dataFile(), config).loadTasks();
+        assertEquals(1, loaded.size());
+        assertEquals("read book", loaded.get(0).getDescription());
+    }
+
+    @Test
+    public void saveTasks_fsync_replacesFileWithoutLeavingTempFile() throws Exception {
+        Storage storage = new Storage(dataFile(), StorageConfig.defaults().withDurability(Durability.FSYNC));
+        storage.saveTasks(new TaskList(new Todo("old task")).getTasks());
+        storage.saveTasks(new TaskList(new Todo("new task")).getTasks());
+
+        assertFalse(Files.exists(Path.of(dataFile() + ".tmp")));
+        List<Task> loaded = new Storage(dataFile()).loadTasks();
+        assertEquals(1, loaded.size());
+        assertEquals("new task", loaded.get(0).getDescription());
+    }
+
+    @Test
+    public void save_writeBehind_coalescesBurstIntoFewWrites() throws Exception {
+        StorageConfig config = StorageConfig.defaults().withWriteBehind(200, 100);
+        Storage storage = new Storage(dataFile(), config);
+        TaskList tasks = new TaskList(storage.loadTasks());
+        for (int i = 0; i < 500; i++) {
+            Task task = new Todo("task " + i);
+            tasks.addTask(task);
+            storage.save(tasks, Mutation.add(task));
+        }
+        tasks.markTask(499);
+        storage.save(tasks, Mutation.mark(499));
+        storage.flush();
+
+        assertTrue(storage.getWriteBehindBatchCount() < 50);
+        List<Task> loaded = new Storage(dataFile()).loadTasks();
+        assertEquals(500, loaded.size());
+        assertTrue(loaded.get(499).isDone());
+    }
+
+    @Test
+    public void endBatch_writeBehindBatchLargerThanQueue_isWrittenInOneBatch() throws Exception {
+        StorageConfig config = StorageConfig.defaults().withMode(StorageConfig.Mode.JOURNAL).withWriteBehind(0, 10);
+        Storage storage = new Storage(dataFile(), config);
+        TaskList tasks = new TaskList(storage.loadTasks());
+        Task first = new Todo("read book");
+        tasks.addTask(first);
+        storage.save(tasks, Mutation.add(first));
+        storage.flush();
+        long batchesBefore = storage.getWriteBehindBatchCount();
+
+        storage.beginBatch();
+        for (int i = 0; i < 50; i++) {
+            Task task = new Todo("task " + i);
+            tasks.addTask(task);
+            storage.save(tasks, Mutation.add(task));
+        }
+        storage.endBatch(tasks);
+        storage.flush();
+
+        assertEquals(batchesBefore + 1, storage.getWriteBehindBatchCount());
+        assertEquals(51, new Storage(dataFile(), config).loadTasks().size());
+    }
+
+    @Test
+    public void save_writeBehindBatchFails_staysFailedUntilSnapshotRecovers() throws Exception {
+        StorageConfig config = StorageConfig.defaults().withMode(StorageConfig.Mode.JOURNAL).withWriteBehind(0, 100);
+        Storage storage = new Storage(dataFile(), config);
+        TaskList tasks = new TaskList(storage.loadTasks());
+        Task first = new Todo("read book");
+        tasks.addTask(first);
+        storage.save(tasks, Mutation.add(first));
+        storage.flush();
+        // A directory in place of the journal makes every append fail
+        Path journal = Path.of(dataFile() + ".journal");
+        Files.deleteIfExists(journal);
+        Files.createDirectories(journal.resolve("blocker"));
+
+        Task second = new Todo("write essay");
+        tasks.addTask(second);
+        storage.save(tasks, Mutation.add(second));
+        assertThrows(SejongException.class, storage::flush);
+        assertThrows(SejongException.class, storage::flush);
+        Task third = new Todo("return book");
+        tasks.addTask(third);
+        assertThrows(SejongException.class, () -> storage.save(tasks, Mutation.add(third)));
+
+        Files.delete(journal.resolve("blocker"));
+        // A retry may already have removed the emptied directory
+        Files.deleteIfExists(journal);
+        storage.flush();
+        tasks.deleteTask(0);
+        storage.save(tasks, Mutation.delete(0));
+        storage.flush();
+
+        List<Task> loaded = new Storage(dataFile(), config).loadTasks();
+        assertEquals(2, loaded.size());
+        assertEquals("write essay", loaded.get(0).getDescription());
+        assertEquals("return book", loaded.get(1).getDescription());
+    }
+
+    @Test
+    public void loadTasks_mixedLineEndingsAndCorruptLines_skipsOnlyCorruptLines() throws Exception {
+        Files.writeString(Path.of(dataFile()), "T | 1 | read book\r\n"
+                + "D | 0 | bad date | 2024-02-30\r\n"
+                + "E | 0 | conference | 2024-12-10 | 2024-12-12\n"
+                + "garbage\n"
+                + "D\t|\t0\t|\tsubmit <<<PIPE>>> report\t|\t2024-12-31");
+
+        List<Task> loaded = new Storage(dataFile()).loadTasks();
+        assertEquals(3, loaded.size());
+        assertTrue(loaded.get(0).isDone());
+        assertEquals("conference", loaded.get(1).getDescription());
+        assertEquals("submit | report", loaded.get(2).getDescription());
+    }
+
+    @Test
+    public void loadTasks_parallelLoading_matchesSequentialOrderAndSkipping() throws Exception {
+        StringBuilder data = new StringBuilder("# sequence 0\n");
+        for (int i = 0; i < 250_000; i++) {
+            if (i % 1000 == 0) {
+                data.append("garbage ").append(i).append("\r\n");
+            } else if (i % 3 == 0) {
+                data.append("E | 1 | event ").append(i).append(" | 2024-12-10 | 2024-12-12\r\n");
+            } else {
+                data.append("D | 0 | deadline ").append(i).append(" | 2024-12-31\n");
+            }
+        }
+        Files.writeString(Path.of(dataFile()), data);
+
+        List<Task> sequential = new Storage(dataFile()).loadTasks();
+        List<Task> parallel = new Storage(dataFile(),
+                StorageConfig.defaults().withParallelLoading(true)).loadTasks();
+
+        assertEquals(250_000 - 250, sequential.size());
+        assertEquals(sequential.size(), parallel.size());
+        for (int i = 0; i < sequential.size(); i++) {
+            assertEquals(sequential.get(i).toString(), parallel.get(i).toString());
+        }
+    }
+
+    @Test
+    public void saveTasks_binaryFormat_roundTripsAndServesRandomAccess() throws Exception {
+        Storage storage = new Storage(dataFile(), StorageConfig.defaults().withFormat(StorageConfig.Format.BINARY));
+        TaskList tasks = new TaskList(new Todo("read | book"), new Deadline("return book", "2024-12-31", true),
+                new Event("conference", "2024-12-10", "2024-12-12"));
+        storage.saveTasks(tasks.getTasks());
+
+        assertTrue(BinaryTaskFile.isBinary(Path.of(dataFile())));
+        BinaryTaskReader reader = BinaryTaskReader.open(Path.of(dataFile()));
+        assertEquals(3, reader.size());
+        assertEquals(tasks.getTasks().get(2).toString(), reader.getTask(2).toString());
+        assertEquals("read | book", reader.getTask(0).getDescription());
+
+        // The default text configuration still loads the binary file
+        List<Task> loaded = new Storage(dataFile()).loadTasks();
+        assertEquals(3, loaded.size());
+        assertTrue(loaded.get(1).isDone());
+    }
+
+    @Test
+    public void migrate_textToBinaryAndBack_keepsTasksAndSequence() throws Exception {
+        Path path = Path.of(dataFile());
+        Files.writeString(path, "# sequence 7\nT | 1 | read <<<PIPE>>> book\nD | 0 | return book | 2024-12-31\n");
+
+        DataFile.migrate(path, StorageConfig.Format.BINARY, Durability.NONE);
+        BinaryTaskReader reader = BinaryTaskReader.open(path);
+        assertEquals(7, reader.getSequence());
+        assertEquals("read | book", reader.getTask(0).getDescription());
+
+        DataFile.migrate(path, StorageConfig.Format.TEXT, Durability.NONE);
+        assertEquals("# sequence 7", Files.readAllLines(path).get(0));
+        assertTrue(Files.readAllLines(path).get(1).startsWith("T | 1 | read <<<PIPE>>> book | #"));
+        // The reader holds its own copy of the file, not a mapping of the replaced one
+        assertEquals("read | book", reader.getTask(0).getDescription());
+    }
+
+    @Test
+    public void open_truncatedBinaryFile_throwsIoException() throws Exception {
+        Path path = Path.of(dataFile());
+        BinaryTaskFile.write(path, Durability.NONE, new TaskList(new Todo("read book")).getTasks(), 0, 1);
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 4));
+
+        assertThrows(IOException.class, () -> BinaryTaskReader.open(path));
+    }
+
+    @Test
+    public void save_markInRewriteMode_patchesStatusByteInPlace() throws Exception {
+        Path path = Path.of(dataFile());
+        String original = "T | 0 | read book\nD | 0 | return <<<PIPE>>> book | 2024-12-31\nT|0|odd spacing\n";
+        Files.writeString(path, original);
+        Storage storage = new Storage(dataFile());
+        TaskList tasks = new TaskList(storage.loadTasks());
+
+        tasks.markTask(1);
+        storage.save(tasks, Mutation.mark(1));
+        assertEquals(original.replace("D | 0", "D | 1"), Files.readString(path));
+
+        tasks.unmarkTask(1);
+        storage.save(tasks, Mutation.unmark(1));
+        assertEquals(original, Files.readString(path));
+
+        // A status field that is not a single byte cannot be patched, so the file is rewritten
+        Files.writeString(path, "T | 00 | read book\n");
+        storage = new Storage(dataFile());
+        tasks = new TaskList(storage.loadTasks());
+        tasks.markTask(0);
+        storage.save(tasks, Mutation.mark(0));
+        assertTrue(new Storage(dataFile()).loadTasks().get(0).isDone());
+    }
+
+    @Test
+    public void save_markAfterAddInBinaryFormat_patchesFlagsByte() throws Exception {
+        StorageConfig config = StorageConfig.defaults().withFormat(StorageConfig.Format.BINARY);
+        Storage storage = new Storage(dataFile(), config);
+        TaskList tasks = new TaskList(storage.loadTasks());
+        Task task = new Todo("read book");
+        tasks.addTask(task);
+        storage.save(tasks, Mutation.add(task));
+        byte[] before = Files.readAllBytes(Path.of(dataFile()));
+
+        tasks.markTask(0);
+        storage.save(tasks, Mutation.mark(0));
+        byte[] after = Files.readAllBytes(Path.of(dataFile()));
+
+        assertEquals(before.length, after.length);
+        int changed = 0;
+        for (int i = 0; i < before.length; i++) {
+            changed += before[i] == after[i] ? 0 : 1;
+        }
+        // Only the flags byte and the record checksum change
+        assertTrue(changed >= 2 && changed <= 5);
+        assertTrue(new Storage(dataFile()).loadTasks().get(0).isDone());
+    }
+
+    @Test
+    public void loadTasks_checksumMismatch_skipsRecordAndReportsOffset() throws Exception {
+        Path path = Path.of(dataFile());
+        Storage storage = new Storage(dataFile());
+        storage.saveTasks(new TaskList(new Todo("read book"), new Todo("return book")).getTasks());
+        String saved = Files.readString(path);
+        int secondLine = saved.indexOf("T | 0 | return");
+        Files.writeString(path, saved.replace("return book", "return boot") + "garbage\n");
+
+        LoadReport report = new LoadReport();
+        List<Task> loaded = new Storage(dataFile()).loadTasks(report);
+
+        assertEquals(1, loaded.size());
+        assertEquals(3, report.getLinesRead());
+        assertEquals(2, report.getRecordsSkipped());
+        assertEquals(secondLine, report.getProblems().get(0).getOffset());
+        assertEquals("Checksum mismatch", report.getProblems().get(0).getReason());
+    }
+
+    @Test
+    public void save_markChecksummedLine_keepsChecksumValid() throws Exception {
+        Storage storage = new Storage(dataFile());
+        storage.saveTasks(new TaskList(new Todo("read book"), new Todo("return book")).getTasks());
+        storage = new Storage(dataFile());
+        TaskList tasks = new TaskList(storage.loadTasks());
+        long sizeBefore = Files.size(Path.of(dataFile()));
+
+        tasks.markTask(1);
+        storage.save(tasks, Mutation.mark(1));
+
+        LoadReport report = new LoadReport();
+        List<Task> loaded = new Storage(dataFile()).loadTasks(report);
+        assertEquals(sizeBefore, Files.size(Path.of(dataFile())));
+        assertFalse(report.hasProblems());
+        assertTrue(loaded.get(1).isDone());
+    }
+
+    @Test
+    public void saveTasks_idsSurviveReloadInBothFormats() throws Exception {
+        for (StorageConfig.Format format : StorageConfig.Format.values()) {
+            Storage storage = new Storage(dataFile(), StorageConfig.defaults().withFormat(format));
+            TaskList tasks = new TaskList(new Todo("read book"), new Todo("return book"), new Todo("call mum"));
+            tasks.deleteTask(0);
+            storage.saveTasks(tasks.getTasks());
+
+            TaskList loaded = new TaskList(new Storage(dataFile()).loadTasks());
+            assertEquals(0, loaded.indexOfId(2));
+            assertEquals("call mum", loaded.getTask(loaded.indexOfId(3)).getDescription());
+            assertEquals(-1, loaded.indexOfId(1));
+        }
+    }
+
+    @Test
+    public void loadTasks_afterNewestTaskDeleted_doesNotGiveItsIdOutAgain() throws Exception {
+        StorageConfig journaled = StorageConfig.defaults().withMode(StorageConfig.Mode.JOURNAL);
+        List<StorageConfig> configs = List.of(StorageConfig.defaults(),
+                StorageConfig.defaults().withFormat(StorageConfig.Format.BINARY), journaled, journaled);
+        for (int i = 0; i < configs.size(); i++) {
+            String path = tempDir.resolve("ids" + i + ".txt").toString();
+            Storage storage = new Storage(path, configs.get(i));
+            TaskList tasks = new TaskList(storage.loadTasks());
+            for (String description : List.of("read book", "return book", "call mum")) {
+                Task task = new Todo(description);
+                tasks.addTask(task);
+                storage.save(tasks, Mutation.add(task));
+            }
+            tasks.deleteTask(2);
+            storage.save(tasks, Mutation.delete(2));
+            if (i == 3) {
+                // Fold the journal, so the id can only come from the snapshot
+                storage.compact();
+                assertFalse(Files.exists(Path.of(path + ".journal")));
+            }
+
+            Storage reloaded = new Storage(path, configs.get(i));
+            List<Task> loadedTasks = reloaded.loadTasks();
+            assertEquals(3, reloaded.getLastId());
+            TaskList loaded = new TaskList(loadedTasks, reloaded.getLastId(), false);
+            Task added = new Todo("water plants");
+            loaded.addTask(added);
+            assertEquals(4, added.getId());
+        }
+    }
+
+    @Test
+    public void loadTasks_legacyLinesWithoutIds_getSequentialIds() throws Exception {
+        Files.writeString(Path.of(dataFile()), "T | 0 | read book\nT | 1 | return book | @7\nT | 0 | call mum\n");
+
+        TaskList loaded = new TaskList(new Storage(dataFile()).loadTasks());
+        assertEquals(1, loaded.getTask(0).getId());
+        assertEquals(7, loaded.getTask(1).getId());
+        assertEquals(8, loaded.getTask(2).getId());
+    }
+
+    @Test
+    public void endBatch_afterSeveralSaves_writesOnce() throws SejongException {
+        Storage storage = new Storage(dataFile());
+        TaskList tasks = new TaskList(storage.loadTasks());
+        storage.beginBatch();
+        for (int i = 0; i < 3; i++) {
+            Task task = new Todo("task " + i);
+            tasks.addTask(task);
+            storage.save(tasks, Mutation.add(task));
+        }
+        tasks.markTask(1);
+        storage.save(tasks, Mutation.mark(1));
+        assertFalse(Files.exists(tempDir.resolve("sejong.txt")));
+
+        storage.endBatch(tasks);
+        List<Task> loaded = new Storage(dataFile()).loadTasks();
+        assertEquals(3, loaded.size());
+        assertTrue(loaded.get(1).isDone());
+    }
+
+    @Test
+    public void save_concurrentlyDuringBatch_keepsEveryMutation() throws Exception {
+        Storage storage = new Storage(dataFile());
+        TaskList tasks = new TaskList();
+        storage.beginBatch();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    storage.save(tasks, Mutation.mark(i));
+                }
+                return null;
+            }));
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(60, TimeUnit.SECONDS));
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        assertEquals(4000, storage.takeBatch().size());
+        assertFalse(storage.isBatching());
+    }
+
+    @Test
+    public void commit_afterStagedChanges_appliesAndSavesAll() throws SejongException {
+        Storage storage = new Storage(dataFile());
+        TaskList tasks = new TaskList(storage.loadTasks());
+        tasks.addTask(new Todo("existing"));
+        storage.save(tasks, Mutation.add(tasks.getTask(0)));
+        Session session = new Session(tasks, storage);
+
+        session.begin();
+        Task added = new Todo("staged");
+        session.getTasks().addTask(added);
+        session.getStorage().save(session.getTasks(), Mutation.add(added));
+        session.getTasks().markTask(0);
+        session.getStorage().save(session.getTasks(), Mutation.mark(0));
+        assertEquals(1, tasks.size());
+        assertFalse(tasks.getTask(0).isDone());
+
+        assertEquals(2, session.commit());
+        assertFalse(session.hasTransaction());
+        assertEquals(2, tasks.size());
+        assertTrue(tasks.getTask(0).isDone());
+        List<Task> loaded = new Storage(dataFile()).loadTasks();
+        assertEquals(2, loaded.size());
+        assertTrue(loaded.get(0).isDone());
+        assertEquals("staged", loaded.get(1).getDescription());
+    }
+
+    @Test
+    public void begin_parsedCommands_stageOnSnapshotWithSameIds() throws SejongException {
+        Storage storage = new Storage(dataFile());
+        TaskList tasks = new TaskList(new Todo("first"), new Todo("second"));
+        Session session = new Session(tasks, storage);
+        Ui ui = new Ui(new StringBuilder());
+
+        Parser.parse("begin").execute(session, ui);
+        Parser.parse("mark #2").execute(session, ui);
+
+        assertEquals(tasks.getTask(1).getId(), session.getTasks().getTask(1).getId());
+        assertTrue(session.getTasks().getTask(1).isDone());
+        assertFalse(tasks.getTask(1).isDone());
+        Parser.parse("commit").execute(session, ui);
+        assertTrue(tasks.getTask(1).isDone());
+        assertTrue(new Storage(dataFile()).loadTasks().get(1).isDone());
+    }
+
+    @Test
+    public void rollback_afterStagedChanges_discardsThem() throws SejongException {
+        Storage storage = new Storage(dataFile());
+        TaskList tasks = new TaskList(storage.loadTasks());
+        Session session = new Session(tasks, storage);
+
+        session.begin();
+        Task added = new Todo("staged");
+        session.getTasks().addTask(added);
+        session.getStorage().save(session.getTasks(), Mutation.add(added));
+
+        assertEquals(1, session.rollback());
+        assertEquals(0, session.getTasks().size());
+        assertFalse(Files.exists(tempDir.resolve("sejong.txt")));
+        assertThrows(SejongException.class, session::rollback);
+    }
+
+    @Test
+    public void commit_afterAnotherSessionChangedList_appliesChangesToSameTasks() throws Exception {
+        Storage storage = new Storage(dataFile());
+        TaskList tasks = new TaskList(storage.loadTasks(), 0, true);
+        Session other = new Session(tasks, storage);
+        Ui ui = new Ui(new StringBuilder());
+        for (String command : List.of("todo read book", "todo return book", "todo call mum", "delete 3")) {
+            Parser.parse(command).execute(other, ui);
+        }
+        Session session = new Session(tasks, storage);
+
+        Parser.parse("begin").execute(session, ui);
+        Parser.parse("mark #2").execute(session, ui);
+        Parser.parse("todo water plants").execute(session, ui);
+        assertEquals(4, session.getTasks().getTask(2).getId());
+        assertEquals(1, session.getTasks().findTasksByKeyword("plants").size());
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            pool.submit(() -> {
+                for (String command : List.of("delete 1", "todo buy milk", "mark 1")) {
+                    Parser.parse(command).execute(other, ui);
+                }
+                return null;
+            }).get();
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(3, session.getTasks().size());
+
+        assertEquals(2, session.commit());
+        List<String> expected = List.of("[T][X] #2 return book", "[T][ ] #4 buy milk", "[T][ ] #5 water plants");
+        assertEquals(expected, describe(tasks.getTasks()));
+        assertEquals(expected, describe(new Storage(dataFile()).loadTasks()));
+    }
+
+    @Test
+    public void commit_afterChangedTaskDeletedElsewhere_failsWithoutApplying() throws SejongException {
+        Storage storage = new Storage(dataFile());
+        TaskList tasks = new TaskList(storage.loadTasks());
+        tasks.addTask(new Todo("read book"));
+        tasks.addTask(new Todo("return book"));
+        Session session = new Session(tasks, storage);
+
+        session.begin();
+        session.getTasks().addTask(new Todo("staged"));
+        session.getTasks().markTask(0);
+        tasks.deleteTask(0);
+
+        assertThrows(SejongException.class, session::commit);
+        assertFalse(session.hasTransaction());
+        assertEquals(1, tasks.size());
+        assertEquals("return book", tasks.getTask(0).getDescription());
+        assertFalse(tasks.getTask(0).isDone());
+    }
+
+    private static List<String> describe(List<Task> tasks) {
+        List<String> descriptions = new ArrayList<>();
+        for (Task task : tasks) {
+            descriptions.add(task.toString());
+        }
+        return descriptions;
+    }
+}
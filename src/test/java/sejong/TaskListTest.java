@@ -6,7 +6,15 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -131,17 +139,20 @@ public class TaskListTest {
         
         Task marked = taskList.markTask(0);
         assertTrue(marked.isDone());
-        assertEquals(sampleTodo, marked);
+        assertEquals(marked, taskList.getTask(0));
+        assertEquals(sampleTodo.getId(), marked.getId());
+        // The list replaces the task rather than changing it
+        assertFalse(sampleTodo.isDone());
     }
 
     @Test
     public void markTask_alreadyMarked_remainsMarked() throws SejongException {
         taskList.addTask(sampleTodo);
         taskList.markTask(0);
-        assertTrue(sampleTodo.isDone());
+        assertTrue(taskList.getTask(0).isDone());
         
         taskList.markTask(0);
-        assertTrue(sampleTodo.isDone());
+        assertTrue(taskList.getTask(0).isDone());
     }
 
     @Test
@@ -158,11 +169,11 @@ public class TaskListTest {
     public void unmarkTask_validIndex_success() throws SejongException {
         taskList.addTask(sampleTodo);
         taskList.markTask(0);
-        assertTrue(sampleTodo.isDone());
+        assertTrue(taskList.getTask(0).isDone());
         
         Task unmarked = taskList.unmarkTask(0);
         assertFalse(unmarked.isDone());
-        assertEquals(sampleTodo, unmarked);
+        assertEquals(unmarked, taskList.getTask(0));
     }
 
     @Test
@@ -320,4 +331,538 @@ public class TaskListTest {
         assertEquals(sampleTodo, copy.getTask(0));
         assertEquals(sampleDeadline, copy.getTask(1));
     }
+
+    @Test
+    public void addTask_assignsIncreasingIds() {
+        taskList.addTask(sampleTodo);
+        taskList.addTask(sampleDeadline);
+
+        assertEquals(1, sampleTodo.getId());
+        assertEquals(2, sampleDeadline.getId());
+    }
+
+    @Test
+    public void toString_addedTask_showsId() {
+        assertFalse(sampleTodo.toString().contains("#"));
+        taskList.addTask(sampleTodo);
+        taskList.addTask(sampleDeadline);
+
+        assertTrue(sampleTodo.toString().startsWith("[T][ ] #1 "));
+        assertTrue(sampleDeadline.toString().startsWith("[D][ ] #2 "));
+    }
+
+    @Test
+    public void deleteTask_keepsIdsOfLaterTasks() throws SejongException {
+        taskList.addTask(sampleTodo);
+        taskList.addTask(sampleDeadline);
+        taskList.addTask(sampleEvent);
+
+        taskList.deleteTask(0);
+        assertEquals(-1, taskList.indexOfId(1));
+        assertEquals(0, taskList.indexOfId(sampleDeadline.getId()));
+        assertEquals(1, taskList.indexOfId(sampleEvent.getId()));
+        assertEquals(sampleEvent, taskList.getTask(1));
+
+        Todo added = new Todo("new task");
+        taskList.addTask(added);
+        assertEquals(4, added.getId());
+    }
+
+    @Test
+    public void deleteTask_manyDeletes_keepsPositionsAndIdsConsistent() throws SejongException {
+        for (int i = 0; i < 500; i++) {
+            taskList.addTask(new Todo("task " + i));
+        }
+        // Delete every other task, then most of the rest, forcing several compactions
+        for (int i = 0; i < 250; i++) {
+            taskList.deleteTask(i);
+        }
+        for (int i = 0; i < 200; i++) {
+            taskList.deleteTask(0);
+        }
+
+        assertEquals(50, taskList.size());
+        for (int i = 0; i < taskList.size(); i++) {
+            Task task = taskList.getTask(i);
+            assertEquals(i, taskList.indexOfId(task.getId()));
+            assertEquals("task " + (task.getId() - 1), task.getDescription());
+        }
+        assertEquals(-1, taskList.indexOfId(1));
+    }
+
+    @Test
+    public void hasDuplicate_sameTypeDescriptionAndDates_detected() throws SejongException {
+        taskList.addTask(sampleTodo);
+        taskList.addTask(sampleDeadline);
+        taskList.addTask(sampleEvent);
+
+        assertTrue(taskList.hasDuplicate(new Todo("  READ Book ")));
+        assertTrue(taskList.hasDuplicate(new Deadline("Return book", "2024-12-31")));
+        assertFalse(taskList.hasDuplicate(new Deadline("return book", "2025-01-01")));
+        assertFalse(taskList.hasDuplicate(new Event("team meeting", "2024-12-01", "2024-12-03")));
+        assertFalse(taskList.hasDuplicate(new Deadline("read book", "2024-12-31")));
+
+        taskList.deleteTask(0);
+        assertFalse(taskList.hasDuplicate(new Todo("read book")));
+    }
+
+    @Test
+    public void hasDuplicate_unusualCase_matchesEqualsIgnoreCase() {
+        String[] descriptions = {"\u01C4", "\u01C5", "\u01C6", "\u212A", "k", "K", "\u00DF", "SS",
+            "\u0130", "i", "I", "\u0131", "\u03A3", "\u03C3", "\u03C2", "\uD801\uDC00", "\uD801\uDC28"};
+        for (String existing : descriptions) {
+            TaskList list = new TaskList(new Todo(existing));
+            for (String candidate : descriptions) {
+                assertEquals(existing.equalsIgnoreCase(candidate), list.hasDuplicate(new Todo(candidate)),
+                        existing + " vs " + candidate);
+            }
+        }
+    }
+
+    @Test
+    public void findTasksBetween_deadlinesAndOverlappingEvents_inListOrder() throws SejongException {
+        Event longEvent = new Event("holiday", "2024-11-20", "2025-01-05");
+        Deadline inside = new Deadline("submit report", "2024-12-10");
+        Deadline outside = new Deadline("pay rent", "2025-02-01");
+        Event before = new Event("workshop", "2024-11-01", "2024-11-02");
+        taskList.addTask(longEvent);
+        taskList.addTask(inside);
+        taskList.addTask(outside);
+        taskList.addTask(before);
+        taskList.addTask(sampleEvent);
+
+        List<Task> found = taskList.findTasksBetween(LocalDate.of(2024, 12, 1), LocalDate.of(2024, 12, 31));
+        assertEquals(List.of(longEvent, inside, sampleEvent), found);
+    }
+
+    @Test
+    public void findTasksOnDate_afterRandomAddsAndDeletes_matchesScan() throws SejongException {
+        Random random = new Random(42);
+        LocalDate base = LocalDate.of(2024, 1, 1);
+        for (int i = 0; i < 2000; i++) {
+            if (taskList.size() > 0 && random.nextInt(3) == 0) {
+                taskList.deleteTask(random.nextInt(taskList.size()));
+            } else if (random.nextBoolean()) {
+                taskList.addTask(new Deadline("deadline " + i, base.plusDays(random.nextInt(60)), false));
+            } else {
+                LocalDate from = base.plusDays(random.nextInt(60));
+                taskList.addTask(new Event("event " + i, from, from.plusDays(random.nextInt(10)), false));
+            }
+        }
+
+        for (int day = -5; day < 75; day++) {
+            LocalDate date = base.plusDays(day);
+            List<Task> expected = new ArrayList<>();
+            for (Task task : taskList.getTasks()) {
+                if (task instanceof Deadline && ((Deadline) task).getBy().equals(date)
+                        || task instanceof Event && !date.isBefore(((Event) task).getFrom())
+                        && !date.isAfter(((Event) task).getTo())) {
+                    expected.add(task);
+                }
+            }
+            assertEquals(expected, taskList.findTasksOnDate(date));
+        }
+    }
+
+    @Test
+    public void findTasks_keywords_matchSubstringsWordsAndPunctuation() throws SejongException {
+        Todo report = new Todo("Write REPORT draft");
+        Todo reporting = new Todo("reporting tools, v2");
+        Todo other = new Todo("call mum");
+        taskList.addTask(report);
+        taskList.addTask(reporting);
+        taskList.addTask(other);
+
+        assertEquals(List.of(report, reporting), taskList.findTasksByKeyword("report"));
+        assertEquals(List.of(reporting), taskList.findTasksByKeyword("PORTING"));
+        assertEquals(List.of(reporting), taskList.findTasksByKeyword("tools, v"));
+        assertEquals(List.of(report), taskList.findTasks(new SearchCriteria(List.of("draft", "rep"))));
+        assertEquals(List.of(), taskList.findTasks(new SearchCriteria(List.of("draft", "mum"))));
+
+        taskList.deleteTask(0);
+        assertEquals(List.of(reporting), taskList.findTasksByKeyword("report"));
+    }
+
+    @Test
+    public void findTasks_afterRandomAddsAndDeletes_matchesScan() throws SejongException {
+        Random random = new Random(7);
+        String[] words = {"read", "reading", "book", "books", "bookshop", "call", "recall", "mum", "x-ray", "c++"};
+        for (int i = 0; i < 1000; i++) {
+            if (taskList.size() > 0 && random.nextInt(4) == 0) {
+                taskList.deleteTask(random.nextInt(taskList.size()));
+            } else {
+                String description = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)];
+                taskList.addTask(new Todo(random.nextBoolean() ? description.toUpperCase() : description));
+            }
+        }
+
+        String[][] queries = {{"book"}, {"READ", "book"}, {"all"}, {"ray"}, {"c++"}, {"ll mu"}, {"shop", "recall"},
+            {"oo"}, {"k r"}, {"ookboo"}, {"zzz"}};
+        for (String[] query : queries) {
+            List<Task> expected = new ArrayList<>();
+            for (Task task : taskList.getTasks()) {
+                boolean isMatch = true;
+                for (String keyword : query) {
+                    isMatch &= task.getDescription().toLowerCase().contains(keyword.toLowerCase());
+                }
+                if (isMatch) {
+                    expected.add(task);
+                }
+            }
+            assertEquals(expected, taskList.findTasks(new SearchCriteria(List.of(query))), String.join(" ", query));
+        }
+    }
+
+    @Test
+    public void countTasks_afterAddMarkAndDelete_matchesTasks() throws SejongException {
+        taskList.addTask(sampleTodo);
+        taskList.addTask(sampleDeadline);
+        taskList.addTask(new Deadline("pay rent", "2025-01-01", true));
+        taskList.addTask(sampleEvent);
+        taskList.markTask(1);
+        taskList.markTask(1);
+        taskList.unmarkTask(2);
+
+        assertEquals(2, taskList.countTasks(SearchCriteria.TaskType.DEADLINE, SearchCriteria.CompletionStatus.ALL));
+        assertEquals(1, taskList.countTasks(SearchCriteria.TaskType.DEADLINE, SearchCriteria.CompletionStatus.DONE));
+        assertEquals(3, taskList.countTasks(SearchCriteria.TaskType.ALL, SearchCriteria.CompletionStatus.PENDING));
+
+        taskList.deleteTask(1);
+        assertEquals(0, taskList.countTasks(SearchCriteria.TaskType.ALL, SearchCriteria.CompletionStatus.DONE));
+        assertEquals(3, taskList.countTasks(SearchCriteria.TaskType.ALL, SearchCriteria.CompletionStatus.ALL));
+    }
+
+    @Test
+    public void findTasks_typeAndStatusFilters_matchScanAfterCompaction() throws SejongException {
+        Random random = new Random(11);
+        for (int i = 0; i < 600; i++) {
+            int kind = random.nextInt(3);
+            Task task = kind == 0 ? new Todo("todo " + i)
+                    : kind == 1 ? new Deadline("deadline " + i, LocalDate.of(2024, 1, 1), false)
+                    : new Event("event " + i, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 2), false);
+            taskList.addTask(task);
+            if (random.nextBoolean()) {
+                taskList.markTask(taskList.size() - 1);
+            }
+        }
+        for (int i = 0; i < 400; i++) {
+            taskList.deleteTask(random.nextInt(taskList.size()));
+        }
+
+        for (SearchCriteria.TaskType type : SearchCriteria.TaskType.values()) {
+            for (SearchCriteria.CompletionStatus status : SearchCriteria.CompletionStatus.values()) {
+                List<Task> expected = new ArrayList<>();
+                for (Task task : taskList.getTasks()) {
+                    boolean isTypeMatch = type == SearchCriteria.TaskType.ALL
+                            || type == SearchCriteria.TaskType.TODO && task instanceof Todo
+                            || type == SearchCriteria.TaskType.DEADLINE && task instanceof Deadline
+                            || type == SearchCriteria.TaskType.EVENT && task instanceof Event;
+                    boolean isStatusMatch = status == SearchCriteria.CompletionStatus.ALL
+                            || (status == SearchCriteria.CompletionStatus.DONE) == task.isDone();
+                    if (isTypeMatch && isStatusMatch) {
+                        expected.add(task);
+                    }
+                }
+                assertEquals(expected, taskList.findTasks(new SearchCriteria(List.of(), null, type, status)));
+                assertEquals(expected.size(), taskList.countTasks(type, status));
+            }
+        }
+    }
+
+    @Test
+    public void planQuery_choosesMostSelectiveAccessPath() throws SejongException {
+        for (int i = 0; i < 200; i++) {
+            taskList.addTask(new Todo("routine chore " + i));
+        }
+        taskList.addTask(new Deadline("file taxes", "2025-04-15"));
+        taskList.markTask(0);
+
+        SearchCriteria rareKeyword = new SearchCriteria(List.of("taxes"));
+        assertEquals(QueryPlan.Access.KEYWORD_INDEX, taskList.planQuery(rareKeyword).getAccess());
+
+        SearchCriteria doneChores = new SearchCriteria(List.of("chore"), null,
+                SearchCriteria.TaskType.ALL, SearchCriteria.CompletionStatus.DONE);
+        QueryPlan plan = taskList.planQuery(doneChores);
+        assertEquals(QueryPlan.Access.TYPE_STATUS_BITMAP, plan.getAccess());
+        assertEquals(1, plan.getEstimatedCandidates());
+        assertEquals(1, plan.getChecks().size());
+        assertEquals(1, taskList.findTasks(doneChores).size());
+
+        SearchCriteria onDate = new SearchCriteria(List.of("e"), LocalDate.of(2025, 4, 15),
+                SearchCriteria.TaskType.ALL, SearchCriteria.CompletionStatus.PENDING);
+        plan = taskList.planQuery(onDate);
+        assertEquals(QueryPlan.Access.DATE_INDEX, plan.getAccess());
+        assertTrue(plan.explain().startsWith("1. Look up date 2025-04-15"));
+        assertEquals(List.of(taskList.getTask(200)), taskList.findTasks(onDate));
+
+        SearchCriteria common = new SearchCriteria(List.of("e"));
+        assertEquals(QueryPlan.Access.FULL_SCAN, taskList.planQuery(common).getAccess());
+    }
+
+    @Test
+    public void planQuery_shortKeyword_usesWordIndexOnlyWhenMostSelective() throws SejongException {
+        for (int i = 0; i < 300; i++) {
+            taskList.addTask(new Todo("routine chore"));
+        }
+        taskList.addTask(new Todo("go to gym"));
+
+        SearchCriteria shortWord = new SearchCriteria(List.of("go"));
+        QueryPlan plan = taskList.planQuery(shortWord);
+        assertEquals(QueryPlan.Access.KEYWORD_INDEX, plan.getAccess());
+        assertTrue(plan.explain().startsWith("1. Look up \"go\" in the word index (~1 of 301 tasks)"));
+        assertEquals(List.of(taskList.getTask(300)), taskList.findTasks(shortWord));
+
+        // The rarer trigram keyword drives the lookup; the short one is only checked on its candidates
+        SearchCriteria mixed = new SearchCriteria(List.of("to", "gym"));
+        plan = taskList.planQuery(mixed);
+        assertTrue(plan.explain().startsWith("1. Look up \"gym\" in the trigram index (~1 of 301 tasks)"));
+        assertEquals(2, plan.getChecks().size());
+        assertEquals(List.of(taskList.getTask(300)), taskList.findTasks(mixed));
+    }
+
+    @Test
+    public void findTasks_repeatedSearch_servedFromCacheUntilListChanges() throws SejongException {
+        taskList.addTask(sampleDeadline);
+        taskList.addTask(new Deadline("pay rent", "2025-01-01"));
+        SearchCriteria pending = new SearchCriteria(List.of("Book"), null,
+                SearchCriteria.TaskType.DEADLINE, SearchCriteria.CompletionStatus.PENDING);
+        SearchCriteria samePending = new SearchCriteria(List.of("book", "BOOK"), null,
+                SearchCriteria.TaskType.DEADLINE, SearchCriteria.CompletionStatus.PENDING);
+
+        assertEquals(List.of(sampleDeadline), taskList.findTasks(pending));
+        assertEquals(List.of(sampleDeadline), taskList.findTasks(samePending));
+        assertEquals(1, taskList.getQueryCache().getHits());
+        assertEquals(1, taskList.getQueryCache().getMisses());
+
+        taskList.markTask(0);
+        assertEquals(List.of(), taskList.findTasks(pending));
+        assertEquals(2, taskList.getQueryCache().getMisses());
+    }
+
+    @Test
+    public void findTasks_residualChecksAfterCompaction_matchScan() throws SejongException {
+        LocalDate base = LocalDate.of(2024, 3, 1);
+        for (int i = 0; i < 300; i++) {
+            Task task = i % 3 == 0 ? new Todo("Todo #" + i)
+                    : i % 3 == 1 ? new Deadline("Deadline #" + i, base.plusDays(i % 7), false)
+                    : new Event("Event #" + i, base.plusDays(i % 5), base.plusDays(i % 5 + 2), false);
+            taskList.addTask(task);
+        }
+        for (int i = 0; i < 200; i++) {
+            taskList.deleteTask(i % taskList.size());
+        }
+
+        SearchCriteria criteria = new SearchCriteria(List.of("#", "E"), base.plusDays(3),
+                SearchCriteria.TaskType.ALL, SearchCriteria.CompletionStatus.PENDING);
+        List<Task> expected = new ArrayList<>();
+        for (Task task : taskList.getTasks()) {
+            String description = task.getDescription().toLowerCase();
+            if (description.contains("#") && description.contains("e")
+                    && taskList.findTasksOnDate(base.plusDays(3)).contains(task)) {
+                expected.add(task);
+            }
+        }
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, taskList.findTasks(criteria));
+    }
+
+    @Test
+    public void findTasks_offHeapDescriptions_matchHeapDescriptions() throws SejongException {
+        String[] descriptions = {"Read Book", "Caf\u00E9 au lait", "\uC138\uC885 \uD68C\uC758 \uC900\uBE44",
+            "Pack \uD83C\uDF92 bag", "Broken \uD83C surrogate", "\u00C9COLE Stra\u00DFe", ""};
+        List<Task> heapTasks = new ArrayList<>();
+        List<Task> offHeapTasks = new ArrayList<>();
+        for (int i = 0; i < 210; i++) {
+            String description = descriptions[i % descriptions.length] + " " + i;
+            heapTasks.add(new Todo(description));
+            offHeapTasks.add(new Todo(description));
+        }
+        TaskList heapList = new TaskList(heapTasks);
+        TaskList offHeapList = new TaskList(offHeapTasks, true);
+        for (int i = 0; i < 140; i++) {
+            heapList.deleteTask(i % 3);
+            offHeapList.deleteTask(i % 3);
+        }
+
+        String[] keywords = {"book", "CAF\u00C9", "\u00E9 a", "\uD68C\uC758", "\uD83C\uDF92", "\uD83C", "\uDF92 b",
+            "stra\u00DFe", "1", "?", " "};
+        for (String keyword : keywords) {
+            SearchCriteria criteria = new SearchCriteria(List.of(keyword), null,
+                    SearchCriteria.TaskType.TODO, SearchCriteria.CompletionStatus.PENDING);
+            List<String> expected = new ArrayList<>();
+            for (Task task : heapList.findTasks(criteria)) {
+                expected.add(task.getDescription());
+            }
+            List<String> actual = new ArrayList<>();
+            for (Task task : offHeapList.findTasks(criteria)) {
+                actual.add(task.getDescription());
+            }
+            assertEquals(expected, actual, keyword);
+        }
+        assertFalse(heapList.findTasksByKeyword("\uD83C").isEmpty());
+    }
+
+    @Test
+    public void descriptionContains_offHeapColumns_matchesBytesAcrossChunks() {
+        TaskColumns columns = new TaskColumns(true);
+        String longDescription = "x".repeat(TaskColumns.CHUNK_SIZE) + "needle";
+        columns.append(TaskColumns.TODO, Long.MAX_VALUE, Long.MIN_VALUE, "first");
+        columns.append(TaskColumns.TODO, Long.MAX_VALUE, Long.MIN_VALUE, longDescription);
+        columns.append(TaskColumns.TODO, Long.MAX_VALUE, Long.MIN_VALUE, "\u00FCn\u00EFcode");
+
+        assertTrue(columns.descriptionContains(1, new TaskColumns.Keyword("needle")));
+        assertFalse(columns.descriptionContains(0, new TaskColumns.Keyword("needle")));
+        assertTrue(columns.descriptionContains(2, new TaskColumns.Keyword("n\u00EFc")));
+        assertEquals(5 + longDescription.length() + 9, columns.offHeapBytes());
+    }
+
+    @Test
+    public void hasDuplicate_afterCompaction_findsSurvivingTasks() throws SejongException {
+        for (int i = 0; i < 200; i++) {
+            taskList.addTask(new Todo("Chore " + i));
+        }
+        for (int i = 0; i < 150; i++) {
+            taskList.deleteTask(0);
+        }
+
+        assertTrue(taskList.hasDuplicate(new Todo("  CHORE 199 ")));
+        assertFalse(taskList.hasDuplicate(new Todo("chore 0")));
+        assertEquals(1, taskList.findTasksByKeyword("chore 199").size());
+    }
+
+    @Test
+    public void runInOrder_slowChange_doesNotHoldUpReaders() throws Exception {
+        taskList.addTask(sampleTodo);
+        taskList.addTask(sampleDeadline);
+        CountDownLatch changed = new CountDownLatch(1);
+        CountDownLatch saved = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        Future<?> change = pool.submit(() -> taskList.runInOrder(() -> {
+            taskList.markTask(0);
+            changed.countDown();
+            // Stands in for a slow write to the disk
+            try {
+                saved.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }));
+        try {
+            assertTrue(changed.await(10, TimeUnit.SECONDS));
+            assertTrue(taskList.getTask(0).isDone());
+            assertEquals(2, taskList.findTasksByKeyword("book").size());
+            assertEquals(1, taskList.countTasks(SearchCriteria.TaskType.ALL,
+                    SearchCriteria.CompletionStatus.DONE));
+        } finally {
+            saved.countDown();
+            pool.shutdown();
+        }
+        change.get();
+    }
+
+    @Test
+    public void concurrentUse_writersAndReaders_loseNoUpdates() throws Exception {
+        int writers = 4;
+        int tasksPerWriter = 500;
+        AtomicInteger added = new AtomicInteger();
+        AtomicInteger marked = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(writers + 2);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < tasksPerWriter; i++) {
+                    // Every writer tries to add the same tasks, so each one must be added exactly once
+                    if (taskList.addTaskIfAbsent(new Todo("stress " + i))) {
+                        added.incrementAndGet();
+                    }
+                    // Appends never move a task, so the position read here still holds when it is marked
+                    taskList.runInOrder(() -> {
+                        int last = taskList.size() - 1;
+                        if (!taskList.getTask(last).isDone()) {
+                            taskList.markTask(last);
+                            marked.incrementAndGet();
+                        }
+                        return null;
+                    });
+                }
+                return null;
+            }));
+        }
+        for (int r = 0; r < 2; r++) {
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    int size = taskList.size();
+                    if (size > 0) {
+                        assertTrue(taskList.getTask(size - 1).getDescription().startsWith("stress"));
+                    }
+                    String keyword = "stress " + (i % tasksPerWriter);
+                    for (Task task : taskList.findTasksByKeyword(keyword)) {
+                        assertTrue(task.getDescription().startsWith(keyword));
+                    }
+                }
+                return null;
+            }));
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(60, TimeUnit.SECONDS));
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        assertEquals(tasksPerWriter, added.get());
+        assertEquals(tasksPerWriter, taskList.size());
+        assertEquals(marked.get(), taskList.countTasks(SearchCriteria.TaskType.ALL,
+                SearchCriteria.CompletionStatus.DONE));
+        int lastId = 0;
+        for (Task task : taskList.getTasks()) {
+            assertTrue(task.getId() > lastId);
+            lastId = task.getId();
+        }
+    }
+
+    @Test
+    public void getTasks_snapshot_unaffectedByLaterChanges() throws SejongException {
+        for (int i = 0; i < 100; i++) {
+            taskList.addTask(new Todo("task " + i));
+        }
+        List<Task> before = taskList.getTasks();
+        taskList.deleteTask(50);
+        taskList.addTask(new Todo("task 100"));
+        taskList.markTask(1);
+        before.set(0, sampleTodo);
+
+        assertEquals(100, before.size());
+        assertFalse(before.get(1).isDone());
+        assertTrue(taskList.getTask(1).isDone());
+        assertEquals("task 50", before.get(50).getDescription());
+        assertEquals("task 99", before.get(99).getDescription());
+        assertEquals("task 0", taskList.getTask(0).getDescription());
+        assertEquals("task 51", taskList.getTask(50).getDescription());
+        assertEquals("task 100", taskList.getTask(99).getDescription());
+        int i = 0;
+        for (Task task : taskList.getTasks()) {
+            assertEquals(task, taskList.getTask(i++));
+        }
+        assertEquals(100, i);
+    }
+
+    @Test
+    public void markTask_datedTasks_replacedInDateIndexes() throws SejongException {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            tasks.add(i % 2 == 0 ? new Deadline("deadline " + i, "2024-12-31")
+                    : new Event("event " + i, "2024-12-30", "2025-01-02"));
+        }
+        TaskList loaded = new TaskList(tasks);
+        assertEquals(tasks, loaded.getTasks());
+
+        Task markedDeadline = loaded.markTask(10);
+        Task markedEvent = loaded.markTask(11);
+        List<Task> onDate = loaded.findTasksOnDate(LocalDate.of(2024, 12, 31));
+        assertEquals(1000, onDate.size());
+        assertEquals(markedDeadline, onDate.get(10));
+        assertEquals(markedEvent, onDate.get(11));
+        assertEquals(loaded.getTasks(), onDate);
+    }
 }